@@ -8,46 +8,28 @@ import entertainment.Genre;
 import entertainment.Video;
 import fileio.ActionInputData;
 import user.User;
-import utils.Utils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 import static common.Constants.ADDED_FAV;
 import static common.Constants.ALREADY_FAV;
 import static common.Constants.ALREADY_RATED;
-import static common.Constants.AVERAGE;
-import static common.Constants.AWARDS;
-import static common.Constants.BEST_UNSEEN;
 import static common.Constants.BEST_UNSEEN_REC;
 import static common.Constants.BY;
 import static common.Constants.CANT_APPLY;
-import static common.Constants.COMMAND;
 import static common.Constants.DESCENDING;
 import static common.Constants.ERROR;
-import static common.Constants.FAVORITE;
 import static common.Constants.FAV_REC;
-import static common.Constants.FILTER_DESCRIPTIONS;
-import static common.Constants.LONGEST;
-import static common.Constants.MOST_VIEWED;
+import static common.Constants.MOVIES;
 import static common.Constants.NOT_SEEN;
-import static common.Constants.NUM_RATINGS;
-import static common.Constants.POPULAR;
 import static common.Constants.POPULAR_REC;
-import static common.Constants.QUERY;
 import static common.Constants.QUERY_REZZ;
-import static common.Constants.RATING;
-import static common.Constants.RATINGS;
-import static common.Constants.RECOMMENDATION;
 import static common.Constants.REZZ;
-import static common.Constants.SEARCH;
 import static common.Constants.SEARCH_REC;
-import static common.Constants.STANDARD;
 import static common.Constants.STANDARD_REC;
 import static common.Constants.SUCCESS;
-import static common.Constants.VIEW;
 import static common.Constants.WAS_RATED;
 import static common.Constants.WAS_VIEWED;
 
@@ -57,90 +39,117 @@ import static common.Constants.WAS_VIEWED;
  */
 public final class Action {
     private final int actionId;
-    private final String actionType;
-    private final String type;
+    /**
+     * What the action does (read once from its action type, type and criteria).
+     */
+    private final Operation operation;
     private final String username;
-    private final String objectType;
-    private final String sortType;
-    private final String criteria;
+    /**
+     * The user of the action (null if there is no such user).
+     */
+    private final User user;
+    /**
+     * True if the query is for movies, false if it's for shows.
+     */
+    private final boolean forMovies;
+    /**
+     * True if the query is sorted in descending order.
+     */
+    private final boolean descending;
     private final String title;
+    /**
+     * The video of the action (null if there is no such video).
+     */
+    private final Video video;
     private final String genre;
     private final int number;
     private final double grade;
     private final int seasonNumber;
     private final List<List<String>> filters;
+    /**
+     * The year and genre filters, read once.
+     */
+    private final QueryFilter queryFilter;
 
-    public Action(final ActionInputData actionData) {
+    /**
+     * @param actionData the action, as it is read
+     * @param user the user with the username of the action (or null)
+     * @param video the video with the title of the action (or null)
+     * @see database.ActionDatabase#compile
+     */
+    public Action(final ActionInputData actionData, final User user, final Video video) {
         this.actionId = actionData.getActionId();
-        this.actionType = actionData.getActionType();
-        this.type = actionData.getType();
+        this.operation = Operation.of(actionData.getActionType(), actionData.getType(),
+                actionData.getCriteria());
         this.username = actionData.getUsername();
-        this.objectType = actionData.getObjectType();
-        this.sortType = actionData.getSortType();
-        this.criteria = actionData.getCriteria();
+        this.user = user;
+        this.forMovies = MOVIES.equals(actionData.getObjectType());
+        this.descending = DESCENDING.equals(actionData.getSortType());
         this.title = actionData.getTitle();
+        this.video = video;
         this.genre = actionData.getGenre();
         this.number = actionData.getNumber();
         this.grade = actionData.getGrade();
         this.seasonNumber = actionData.getSeasonNumber();
         this.filters = actionData.getFilters();
+        this.queryFilter = filters == null || filters.size() < 2 ? QueryFilter.NONE
+                : new QueryFilter(filters.get(0).get(0), filters.get(1));
     }
 
     /**
      * Calls the necessary method to execute the action depending on the
-     * action's type.
+     * action's operation.
      * @param actorDatabase all actors
      * @param userDatabase all users
      * @param videoDatabase all videos
      * @param genreDatabase all genres
-     * @return the message as a string that will be put in the JSONArray
+     * @return the message that will be written in the output file
      */
-    public String executeAction(final ActorDatabase actorDatabase,
-                                final UserDatabase userDatabase,
-                                final VideoDatabase videoDatabase,
-                                final GenreDatabase genreDatabase) {
-
-        User user = userDatabase.getUserDatabase().get(this.username);
-        Video video = videoDatabase.getVideoDatabase().get(this.title);
-
-        return switch (this.actionType) {
-            case (COMMAND) -> command(user, video, genreDatabase);
-            case (QUERY) -> query(actorDatabase, videoDatabase, userDatabase);
-            case (RECOMMENDATION) -> recommendation(user, videoDatabase, genreDatabase);
-            default -> null;
-        };
+    public Message executeAction(final ActorDatabase actorDatabase,
+                                 final UserDatabase userDatabase,
+                                 final VideoDatabase videoDatabase,
+                                 final GenreDatabase genreDatabase) {
+        if (operation.isCommand()) {
+            return Message.of(command(actorDatabase, videoDatabase, genreDatabase));
+        } else if (operation.isRecommendation()) {
+            return recommendation(videoDatabase, genreDatabase);
+        } else {
+            return query(actorDatabase, videoDatabase, userDatabase);
+        }
     }
 
     /**
      * Executes one of the 3 commands.
-     * @param user the user that "does" the command
-     * @param video the video that the user does the command on
+     * @param actorDatabase all actors
+     * @param videoDatabase all videos
      * @param genreDatabase all genres
      * @return the message as a string that will be put in the JSONArray
      */
-    private String command(final User user, final Video video, final GenreDatabase genreDatabase) {
-        return switch (this.type) {
-            case (FAVORITE) -> favCom(user, video);
-            case (VIEW) -> viewCom(user, video, genreDatabase);
-            case (RATING) -> rateCom(user, video);
-            default -> null;
-        };
+    private String command(final ActorDatabase actorDatabase, final VideoDatabase videoDatabase,
+                           final GenreDatabase genreDatabase) {
+        // the actions of an user are executed one at a time
+        synchronized (user) {
+            return switch (operation) {
+                case FAVORITE_COMMAND -> favCom(videoDatabase);
+                case VIEW_COMMAND -> viewCom(videoDatabase, genreDatabase);
+                case RATING_COMMAND -> rateCom(actorDatabase, videoDatabase);
+                default -> null;
+            };
+        }
     }
 
     /**
      * Tries to add the video in the user's favorite list if that video was
      * seen by the user and is not already in the favorite list.
      * @see user.User#addVideoInFavList
-     * @param user the user that favors a video
-     * @param video the video that has been favored
+     * @param videoDatabase all the videos
      * @return the message as a string that will be put in the JSONArray
      */
-    private String favCom(final User user, final Video video) {
-        if (!user.getFavVideos().contains(video)
-                && user.getViewedList().containsKey(video)) {
-            user.addVideoInFavList(video);
+    private String favCom(final VideoDatabase videoDatabase) {
+        if (!user.isFavorite(video) && user.hasSeen(video)) {
+            user.addVideoInFavList(video, videoDatabase);
             return SUCCESS + video.getTitle() + ADDED_FAV;
-        } else if (user.getFavVideos().contains(video)) {
+        } else if (user.isFavorite(video)) {
             return ERROR + video.getTitle() + ALREADY_FAV;
         } else {
             return ERROR + video.getTitle() + NOT_SEEN;
@@ -150,14 +159,13 @@ public final class Action {
     /**
      * Calls the method from the user class to watch a video.
      * @see user.User#watchVideo
-     * @param user the user that views a video
-     * @param video the video that has been viewed
+     * @param videoDatabase all the videos
      * @param genreDatabase all the genres
      * @return the message as a string that will be put in the JSONArray
      */
-    private String viewCom(final User user, final Video video, final GenreDatabase genreDatabase) {
-        user.watchVideo(video, genreDatabase);
-        return SUCCESS + video.getTitle() + WAS_VIEWED + user.getViewedList().get(video);
+    private String viewCom(final VideoDatabase videoDatabase, final GenreDatabase genreDatabase) {
+        user.watchVideo(video, videoDatabase, genreDatabase);
+        return SUCCESS + video.getTitle() + WAS_VIEWED + user.getViews(video);
     }
 
     /**
@@ -166,26 +174,28 @@ public final class Action {
      * specific error message.
      * @see user.User#rateMovie
      * @see user.User#rateShow
-     * @param user the user that rates a video
-     * @param video the video that has been rated
+     * @param actorDatabase all the actors, whose grades are updated
+     * @param videoDatabase all the videos
      * @return the message as a string that will be put in the JSONArray
      */
-    private String rateCom(final User user, final Video video) {
-        if (!user.getViewedList().containsKey(video)) {
+    private String rateCom(final ActorDatabase actorDatabase, final VideoDatabase videoDatabase) {
+        if (!user.hasSeen(video)) {
             return ERROR + video.getTitle() + NOT_SEEN;
         } else {
             if (!video.isShow()) {
-                if (user.getRatedMovies().contains(this.title)) {
+                if (user.hasRated(videoDatabase.getRatingSlot(video, 0))) {
                     return ERROR + video.getTitle() + ALREADY_RATED;
                 } else {
-                    user.rateMovie(video, this.grade);
+                    user.rateMovie(video, this.grade, videoDatabase);
+                    actorDatabase.updateGrades(video);
                     return SUCCESS + video.getTitle() + WAS_RATED + this.grade + BY + this.username;
                 }
             } else {
-                if (user.getRatedShows().contains(this.title + this.seasonNumber)) {
+                if (user.hasRated(videoDatabase.getRatingSlot(video, this.seasonNumber))) {
                     return ERROR + video.getTitle() + ALREADY_RATED;
                 } else {
-                    user.rateShow(this.seasonNumber, video, this.grade);
+                    user.rateShow(this.seasonNumber, video, this.grade, videoDatabase);
+                    actorDatabase.updateGrades(video);
                     return SUCCESS + video.getTitle() + WAS_RATED + this.grade + BY + this.username;
                 }
             }
@@ -193,23 +203,23 @@ public final class Action {
     }
 
     /**
-     * Applies the query depending on the action's criteria.
+     * Applies the query depending on the action's operation.
      * @param actorDatabase actor database
      * @param videoDatabase video database
      * @param userDatabase user database
-     * @return the message as a string that will be put in the JSONArray
+     * @return the message that will be written in the output file
      */
-    private String query(final ActorDatabase actorDatabase, final VideoDatabase videoDatabase,
-                         final UserDatabase userDatabase) {
-        return switch (this.criteria) {
-            case (AVERAGE) -> averageQuery(actorDatabase, videoDatabase);
-            case (AWARDS) -> awardsQuery(actorDatabase);
-            case (FILTER_DESCRIPTIONS) -> descriptionQuery(actorDatabase);
-            case (RATINGS) -> ratingsQuery(videoDatabase);
-            case (FAVORITE) -> favQuery(videoDatabase);
-            case (LONGEST) -> longestQuery(videoDatabase);
-            case (MOST_VIEWED) -> mostViewedQuery(videoDatabase);
-            case (NUM_RATINGS) -> userQuery(userDatabase);
+    private Message query(final ActorDatabase actorDatabase, final VideoDatabase videoDatabase,
+                          final UserDatabase userDatabase) {
+        return switch (operation) {
+            case AVERAGE_QUERY -> averageQuery(actorDatabase);
+            case AWARDS_QUERY -> awardsQuery(actorDatabase);
+            case DESCRIPTION_QUERY -> descriptionQuery(actorDatabase);
+            case RATINGS_QUERY -> ratingsQuery(videoDatabase);
+            case FAVORITE_QUERY -> favQuery(videoDatabase);
+            case LONGEST_QUERY -> longestQuery(videoDatabase);
+            case MOST_VIEWED_QUERY -> mostViewedQuery(videoDatabase);
+            case NUM_RATINGS_QUERY -> userQuery(userDatabase);
             default -> null;
         };
     }
@@ -217,143 +227,110 @@ public final class Action {
     /**
      * @see database.ActorDatabase#getAvgQuery
      */
-    private String averageQuery(final ActorDatabase actorDatabase,
-                                final VideoDatabase videoDatabase) {
-        ArrayList<String> actorsNames = actorDatabase.getAvgQuery(videoDatabase);
-        reverseAndTrimIfNecessary(actorsNames);
+    private Message averageQuery(final ActorDatabase actorDatabase) {
+        ArrayList<String> actorsNames = actorDatabase.getAvgQuery(this);
 
-        return QUERY_REZZ + actorsNames;
+        return Message.list(QUERY_REZZ, actorsNames);
     }
 
 
     /**
      * @see database.ActorDatabase#getAwardsQuery
      */
-    private String awardsQuery(final ActorDatabase actorDatabase) {
+    private Message awardsQuery(final ActorDatabase actorDatabase) {
         ArrayList<String> actorsNames = actorDatabase.getAwardsQuery(this);
-        reverseAndTrimIfNecessary(actorsNames);
 
-        return QUERY_REZZ + actorsNames;
+        return Message.list(QUERY_REZZ, actorsNames);
     }
 
     /**
      * @see database.ActorDatabase#getDescriptionQuery
      */
-    private String descriptionQuery(final ActorDatabase actorDatabase) {
+    private Message descriptionQuery(final ActorDatabase actorDatabase) {
         ArrayList<String> actors = actorDatabase.getDescriptionQuery(this);
-        reverseAndTrimIfNecessary(actors);
 
-        return QUERY_REZZ + actors;
+        return Message.list(QUERY_REZZ, actors);
     }
 
     /**
      * @see database.VideoDatabase#getRatedVideos
      */
-    private String ratingsQuery(final VideoDatabase videoDatabase) {
-        ArrayList<String> ratedVideos = videoDatabase.getRatedVideos(this);
-        reverseAndTrimIfNecessary(ratedVideos);
-
-        return QUERY_REZZ + ratedVideos;
+    private Message ratingsQuery(final VideoDatabase videoDatabase) {
+        return Message.list(QUERY_REZZ, videoDatabase.getRatedVideos(this));
     }
 
     /**
      * @see database.VideoDatabase#getFavVideos
      */
-    private String favQuery(final VideoDatabase videoDatabase) {
-        ArrayList<String> favMovies = videoDatabase.getFavVideos(this);
-        reverseAndTrimIfNecessary(favMovies);
-
-        return QUERY_REZZ + favMovies;
+    private Message favQuery(final VideoDatabase videoDatabase) {
+        return Message.list(QUERY_REZZ, videoDatabase.getFavVideos(this));
     }
 
     /**
      * @see database.VideoDatabase#getLongVideos
      */
-    private String longestQuery(final VideoDatabase videoDatabase) {
-        ArrayList<String> longestMovies = videoDatabase.getLongVideos(this);
-        reverseAndTrimIfNecessary(longestMovies);
-
-        return QUERY_REZZ + longestMovies;
+    private Message longestQuery(final VideoDatabase videoDatabase) {
+        return Message.list(QUERY_REZZ, videoDatabase.getLongVideos(this));
     }
 
     /**
      * @see database.VideoDatabase#getMostViewedVideos
      */
-    private String mostViewedQuery(final VideoDatabase videoDatabase) {
-        ArrayList<String> mostViewedMovies = videoDatabase.getMostViewedVideos(this);
-        reverseAndTrimIfNecessary(mostViewedMovies);
-
-        return QUERY_REZZ + mostViewedMovies;
+    private Message mostViewedQuery(final VideoDatabase videoDatabase) {
+        return Message.list(QUERY_REZZ, videoDatabase.getMostViewedVideos(this));
     }
 
     /**
      * @see UserDatabase#getPopularUsers
      */
-    private String userQuery(final UserDatabase userDatabase) {
-        ArrayList<String> users = userDatabase.getPopularUsers();
-        reverseAndTrimIfNecessary(users);
+    private Message userQuery(final UserDatabase userDatabase) {
+        ArrayList<String> users = userDatabase.getPopularUsers(this);
 
-        return QUERY_REZZ + users;
+        return Message.list(QUERY_REZZ, users);
     }
 
     /**
-     * Applies the recommendation based on it's type.
-     * @param user the user for whom the recommendation is made
+     * Applies the recommendation based on it's operation.
      * @param videoDatabase video database
      * @param genreDatabase genre database
-     * @return the message as a string that will be put in the JSONArray
+     * @return the message that will be written in the output file
      */
-    private String recommendation(final User user, final VideoDatabase videoDatabase,
-                                  final GenreDatabase genreDatabase) {
-        return switch (this.type) {
-            case (STANDARD) -> standardRec(user, videoDatabase);
-            case (BEST_UNSEEN) -> bestUnseenRec(user, videoDatabase);
-            case (POPULAR) -> popularRec(user, videoDatabase, genreDatabase);
-            case (FAVORITE) -> favRec(user, videoDatabase);
-            case (SEARCH) -> searchRec(user, videoDatabase);
-            default -> null;
-        };
+    private Message recommendation(final VideoDatabase videoDatabase,
+                                   final GenreDatabase genreDatabase) {
+        // the actions of an user are executed one at a time
+        synchronized (user) {
+            return switch (operation) {
+                case STANDARD_RECOMMENDATION -> Message.of(standardRec(videoDatabase));
+                case BEST_UNSEEN_RECOMMENDATION -> Message.of(bestUnseenRec(videoDatabase));
+                case POPULAR_RECOMMENDATION -> Message.of(popularRec(videoDatabase,
+                        genreDatabase));
+                case FAVORITE_RECOMMENDATION -> Message.of(favRec(videoDatabase));
+                case SEARCH_RECOMMENDATION -> searchRec(videoDatabase);
+                default -> null;
+            };
+        }
     }
 
     /**
      * standard recommendation
      */
-    private String standardRec(final User user, final VideoDatabase videoDatabase) {
-        String standardRec = "";
-
+    private String standardRec(final VideoDatabase videoDatabase) {
         // finds the first unseen video
-        for (Video videoEntry : videoDatabase.getVideoDatabase().values()) {
-            if (!user.getViewedList().containsKey(videoEntry)) {
-                standardRec = videoEntry.getTitle();
-                break;
-            }
-        }
+        int unseenVideo = user.firstUnseenVideo();
 
-        if (standardRec.isBlank()) {
+        if (unseenVideo >= videoDatabase.size()) {
             return STANDARD_REC + CANT_APPLY;
         } else {
-            return STANDARD_REC + REZZ + standardRec;
+            return STANDARD_REC + REZZ + videoDatabase.getVideo(unseenVideo).getTitle();
         }
     }
 
     /**
      * best unseen recommendation
      */
-    private String bestUnseenRec(final User user, final VideoDatabase videoDatabase) {
-        Video bestUnseenRec = null;
-
+    private String bestUnseenRec(final VideoDatabase videoDatabase) {
         // finds the best unseen video
-        for (Video videoEntry : videoDatabase.getVideoDatabase().values()) {
-            if (!user.getViewedList().containsKey(videoEntry)) {
-                if (bestUnseenRec == null) {
-                    bestUnseenRec = videoEntry;
-                } else {
-                    if (videoEntry.getAvgRating() > bestUnseenRec.getAvgRating()) {
-                        bestUnseenRec = videoEntry;
-                    }
-                }
-            }
-        }
+        Video bestUnseenRec = videoDatabase.findBestRated(candidate -> !user.hasSeen(candidate));
 
         if (bestUnseenRec == null) {
             return BEST_UNSEEN_REC + CANT_APPLY;
@@ -365,35 +342,19 @@ public final class Action {
     /**
      * popular recommendation
      */
-    private String popularRec(final User user, final VideoDatabase videoDatabase,
+    private String popularRec(final VideoDatabase videoDatabase,
                               final GenreDatabase genreDatabase) {
         // verifies if the user is premium
         if (!user.getSubscription()) {
             return POPULAR_REC + CANT_APPLY;
         }
 
-        // gets all the genres
-        ArrayList<Genre> allGenres = new ArrayList<>(genreDatabase.getGenreDatabase().keySet());
-
-        // sorts them by the number of views (in ascending order)
-        allGenres.sort(Comparator.comparingInt(key -> genreDatabase.getGenreDatabase().get(key)));
-
-        ArrayList<String> stringGenres = new ArrayList<>();
-
-        // put them as string
-        for (Genre genres : allGenres) {
-            stringGenres.add(Utils.genreToString(genres));
-        }
-
-        // we want them from the most viewed to the least viewed
-        Collections.reverse(stringGenres);
-
-        // goes through each genre until it finds one video that is unseen
-        for (String genreName : stringGenres) {
-            for (Video video : videoDatabase.getVideoDatabase().values()) {
-                if (video.getGenres().contains(genreName)
-                        && !user.getViewedList().containsKey(video)) {
-                    return POPULAR_REC + REZZ + video.getTitle();
+        // goes through the genres, from the most viewed to the least viewed,
+        // until it finds one video that is unseen
+        for (Genre popularGenre : genreDatabase.getGenresByViews()) {
+            for (Video videoEntry : videoDatabase.getVideosByGenre(popularGenre)) {
+                if (!user.hasSeen(videoEntry)) {
+                    return POPULAR_REC + REZZ + videoEntry.getTitle();
                 }
             }
         }
@@ -404,7 +365,7 @@ public final class Action {
     /**
      * favorite recommendation
      */
-    private String favRec(final User user, final VideoDatabase videoDatabase) {
+    private String favRec(final VideoDatabase videoDatabase) {
         // verifies if the user is premium
         if (!user.getSubscription()) {
             return FAV_REC + CANT_APPLY;
@@ -417,7 +378,7 @@ public final class Action {
          the one with the best rating
         */
         for (Video videoEntry : videoDatabase.getVideoDatabase().values()) {
-            if (!user.getViewedList().containsKey(videoEntry)) {
+            if (!user.hasSeen(videoEntry)) {
                 if (bestFav == null) {
                     if (videoEntry.getNrOfFav() > 0) {
                         bestFav = videoEntry;
@@ -440,10 +401,10 @@ public final class Action {
     /**
      * search recommendation
      */
-    private String searchRec(final User user, final VideoDatabase videoDatabase) {
+    private Message searchRec(final VideoDatabase videoDatabase) {
         // verifies if the user is premium
         if (!user.getSubscription()) {
-            return SEARCH_REC + CANT_APPLY;
+            return Message.of(SEARCH_REC + CANT_APPLY);
         }
 
         ArrayList<String> searchRec = new ArrayList<>();
@@ -453,44 +414,61 @@ public final class Action {
          specified genre
         */
         for (Video videoEntry : videoDatabase.getVideoDatabase().values()) {
-            if (!user.getViewedList().containsKey(videoEntry)
+            if (!user.hasSeen(videoEntry)
                     && videoEntry.getGenres().contains(this.genre)) {
                 searchRec.add(videoEntry.getTitle());
             }
         }
 
         if (searchRec.isEmpty()) {
-            return SEARCH_REC + CANT_APPLY;
+            return Message.of(SEARCH_REC + CANT_APPLY);
         } else {
             Collections.sort(searchRec);
-            return SEARCH_REC + REZZ + searchRec;
+            return Message.list(SEARCH_REC + REZZ, searchRec);
         }
     }
 
-    /**
-     * Reverses and trims the list based on the infos from action.
-     */
-    private void reverseAndTrimIfNecessary(final ArrayList<String> list) {
-        if (this.sortType.equals(DESCENDING)) {
-            Collections.reverse(list);
-        }
+    public int getActionId() {
+        return actionId;
+    }
 
-        if (number != 0) {
-            while (this.number < list.size()) {
-                list.remove(this.number);
-            }
-        }
+    public Operation getOperation() {
+        return operation;
     }
 
-    public int getActionId() {
-        return actionId;
+    public String getUsername() {
+        return username;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Video getVideo() {
+        return video;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getNumber() {
+        return number;
     }
 
     public List<List<String>> getFilters() {
         return filters;
     }
 
-    public String getObjectType() {
-        return objectType;
+    public QueryFilter getQueryFilter() {
+        return queryFilter;
+    }
+
+    public boolean isForMovies() {
+        return forMovies;
     }
 }
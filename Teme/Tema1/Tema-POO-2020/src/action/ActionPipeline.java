@@ -0,0 +1,218 @@
+package action;
+
+import database.ActionDatabase;
+import database.ActorDatabase;
+import database.GenreDatabase;
+import database.UserDatabase;
+import database.VideoDatabase;
+import fileio.ActionInputData;
+import fileio.StreamingInputLoader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static common.Constants.ACTION_QUEUE_CAPACITY;
+import static common.Constants.PARALLEL_ACTIONS;
+
+/**
+ * Executes the actions while they are still being read.<br>
+ * The thread that calls "run" reads the actions one by one and puts them in a
+ * bounded queue; an executor thread takes them from the queue in order,
+ * executes them and gives every result to a ResultConsumer as soon as it is
+ * produced. Only a limited number of actions are kept in memory at a time.<br>
+ * With -Dvideosdb.parallelActions=true the actions are given to an
+ * ActionScheduler instead, which runs the independent actions in parallel.<br>
+ * If it is given a LatencyStats, the latency of every action is recorded.
+ */
+public final class ActionPipeline {
+    /**
+     * The message of the exception thrown when the reading is interrupted.
+     */
+    private static final String INTERRUPTED = "Interrupted before all the actions were read";
+    /**
+     * Put in the queue after the last action.
+     */
+    private static final Action END = new Action(new ActionInputData(0, null, null, null,
+            null, 0d, 0), null, null);
+
+    private final ActorDatabase actorDatabase;
+    private final UserDatabase userDatabase;
+    private final VideoDatabase videoDatabase;
+    private final GenreDatabase genreDatabase;
+    private final ActionDatabase actionDatabase;
+    /**
+     * Records the latency of every action (null if the latencies aren't
+     * recorded).
+     */
+    private final LatencyStats latencyStats;
+    private final BlockingQueue<Action> queue = new ArrayBlockingQueue<>(ACTION_QUEUE_CAPACITY);
+    /**
+     * The first error thrown by the executor thread (if any).
+     */
+    private volatile Throwable failure = null;
+
+    /**
+     * Receives the result of every action, in the order of the actions.
+     */
+    public interface ResultConsumer {
+        /**
+         * @param actionId the id of the action
+         * @param message the message of the action
+         * @throws IOException in case of exceptions to writing
+         */
+        void accept(int actionId, Message message) throws IOException;
+    }
+
+    public ActionPipeline(final ActorDatabase actorDatabase, final UserDatabase userDatabase,
+                          final VideoDatabase videoDatabase,
+                          final GenreDatabase genreDatabase,
+                          final LatencyStats latencyStats) {
+        this.actorDatabase = actorDatabase;
+        this.userDatabase = userDatabase;
+        this.videoDatabase = videoDatabase;
+        this.genreDatabase = genreDatabase;
+        this.actionDatabase = new ActionDatabase(userDatabase, videoDatabase);
+        this.latencyStats = latencyStats;
+    }
+
+    /**
+     * Reads the remaining actions of the loader and executes them.<br>
+     * Returns after every action has been executed and its result consumed.
+     * @param inputLoader the loader, with the database already read
+     * @param resultConsumer receives the result of every action
+     * @throws IOException in case of exceptions to reading / writing
+     * (InterruptedIOException if the thread is interrupted before every action
+     * was read; the actions read until then are still executed)
+     */
+    public void run(final StreamingInputLoader inputLoader,
+                    final ResultConsumer resultConsumer) throws IOException {
+        if (PARALLEL_ACTIONS) {
+            runScheduled(inputLoader, resultConsumer);
+            return;
+        }
+
+        Thread executor = new Thread(() -> execute(resultConsumer), "action-executor");
+        executor.start();
+        boolean interrupted = false;
+
+        try {
+            for (ActionInputData actionData = inputLoader.nextAction(); actionData != null;
+                 actionData = inputLoader.nextAction()) {
+                queue.put(actionDatabase.compile(actionData));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        } finally {
+            putEnd();
+            join(executor);
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+
+        if (interrupted) {
+            throw new InterruptedIOException(INTERRUPTED);
+        }
+    }
+
+    /**
+     * Reads the remaining actions of the loader and gives them to an
+     * ActionScheduler, which runs the independent actions in parallel.
+     */
+    private void runScheduled(final StreamingInputLoader inputLoader,
+                              final ResultConsumer resultConsumer) throws IOException {
+        ActionScheduler scheduler = new ActionScheduler(actorDatabase, userDatabase,
+                videoDatabase, genreDatabase, resultConsumer, latencyStats);
+        boolean interrupted = false;
+
+        try {
+            for (ActionInputData actionData = inputLoader.nextAction(); actionData != null;
+                 actionData = inputLoader.nextAction()) {
+                scheduler.submit(actionDatabase.compile(actionData));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        } finally {
+            scheduler.finish();
+        }
+
+        if (interrupted) {
+            throw new InterruptedIOException(INTERRUPTED);
+        }
+    }
+
+    /**
+     * Takes the actions from the queue and executes them until the end of
+     * the actions.<br>
+     * After an error the rest of the actions are only taken from the queue, so
+     * the reading thread is never blocked.
+     */
+    private void execute(final ResultConsumer resultConsumer) {
+        try {
+            for (Action action = queue.take(); action != END; action = queue.take()) {
+                if (failure != null) {
+                    continue;
+                }
+
+                try {
+                    long start = latencyStats == null ? 0 : System.nanoTime();
+                    Message message = action.executeAction(actorDatabase, userDatabase,
+                            videoDatabase, genreDatabase);
+
+                    if (latencyStats != null) {
+                        latencyStats.record(action.getOperation(), System.nanoTime() - start);
+                    }
+                    resultConsumer.accept(action.getActionId(), message);
+                } catch (IOException | RuntimeException | Error e) {
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+        }
+    }
+
+    private void putEnd() {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                queue.put(END);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void join(final Thread executor) {
+        boolean interrupted = false;
+
+        while (executor.isAlive()) {
+            try {
+                executor.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
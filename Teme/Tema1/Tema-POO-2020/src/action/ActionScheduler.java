@@ -0,0 +1,273 @@
+package action;
+
+import database.ActorDatabase;
+import database.GenreDatabase;
+import database.UserDatabase;
+import database.VideoDatabase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import static common.Constants.SCHEDULER_WINDOW;
+
+
+/**
+ * Executes the actions in parallel, with the same results as executing them
+ * one by one.<br>
+ * For every action it finds the data the action reads and the data it
+ * changes (the user, the views / favorites / ratings of a video, the views of
+ * a genre). An action only waits for the earlier actions that change the data
+ * it uses or that use the data it changes; the other actions run in parallel.
+ * The results are still given in the order of the actions.
+ */
+public final class ActionScheduler {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final ActorDatabase actorDatabase;
+    private final UserDatabase userDatabase;
+    private final VideoDatabase videoDatabase;
+    private final GenreDatabase genreDatabase;
+    private final ActionPipeline.ResultConsumer resultConsumer;
+    /**
+     * Records the latency of every action (null if the latencies aren't
+     * recorded).
+     */
+    private final LatencyStats latencyStats;
+    private final EnumMap<Data, Tracker> trackers = new EnumMap<>(Data.class);
+    /**
+     * Limits the number of actions that are scheduled, but not written yet.
+     */
+    private final Semaphore window = new Semaphore(SCHEDULER_WINDOW);
+    /**
+     * Completes after the result of the last scheduled action was written.
+     */
+    private CompletableFuture<Void> written = DONE;
+
+    /**
+     * The data that can be read or changed by an action.
+     */
+    private enum Data {
+        USER, VIEWS, FAVORITES, RATINGS, GENRES
+    }
+
+    /**
+     * A piece of data that is read or changed by an action.<br>
+     * A null key means all the data of that type.
+     */
+    private static final class Access {
+        private final Data data;
+        private final Object key;
+        private final boolean write;
+
+        private Access(final Data data, final Object key, final boolean write) {
+            this.data = data;
+            this.key = key;
+            this.write = write;
+        }
+    }
+
+    public ActionScheduler(final ActorDatabase actorDatabase, final UserDatabase userDatabase,
+                           final VideoDatabase videoDatabase, final GenreDatabase genreDatabase,
+                           final ActionPipeline.ResultConsumer resultConsumer,
+                           final LatencyStats latencyStats) {
+        this.actorDatabase = actorDatabase;
+        this.userDatabase = userDatabase;
+        this.videoDatabase = videoDatabase;
+        this.genreDatabase = genreDatabase;
+        this.resultConsumer = resultConsumer;
+        this.latencyStats = latencyStats;
+
+        for (Data data : Data.values()) {
+            trackers.put(data, new Tracker());
+        }
+    }
+
+    /**
+     * Schedules an action after the actions it depends on.<br>
+     * Must be called in the order of the actions, from a single thread.
+     * @param action the action
+     * @throws InterruptedException if interrupted while too many actions are
+     * waiting to be written
+     */
+    public void submit(final Action action) throws InterruptedException {
+        window.acquire();
+
+        List<Access> accesses = findAccesses(action);
+        List<CompletableFuture<?>> dependencies = new ArrayList<>();
+
+        for (Access access : accesses) {
+            trackers.get(access.data).addDependencies(access, dependencies);
+        }
+
+        CompletableFuture<Message> execution = CompletableFuture
+                .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> execute(action), ForkJoinPool.commonPool());
+
+        for (Access access : accesses) {
+            trackers.get(access.data).register(access, execution);
+        }
+
+        written = written.thenCombine(execution, (ignored, message) -> {
+            try {
+                resultConsumer.accept(action.getActionId(), message);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        written.whenComplete((ignored, error) -> window.release());
+    }
+
+    /**
+     * Executes an action and records its latency.
+     */
+    private Message execute(final Action action) {
+        long start = latencyStats == null ? 0 : System.nanoTime();
+        Message message = action.executeAction(actorDatabase, userDatabase, videoDatabase,
+                genreDatabase);
+
+        if (latencyStats != null) {
+            latencyStats.record(action.getOperation(), System.nanoTime() - start);
+        }
+
+        return message;
+    }
+
+    /**
+     * Waits until the results of all the scheduled actions are written.
+     * @throws IOException in case of exceptions to writing
+     */
+    public void finish() throws IOException {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param action the action
+     * @return the data that is read or changed by the action
+     */
+    private List<Access> findAccesses(final Action action) {
+        List<Access> accesses = new ArrayList<>();
+
+        if (action.getOperation().isCommand()) {
+            accesses.add(new Access(Data.USER, action.getUsername(), true));
+        } else if (action.getOperation().isRecommendation()) {
+            accesses.add(new Access(Data.USER, action.getUsername(), false));
+        }
+
+        switch (action.getOperation()) {
+            case FAVORITE_COMMAND -> accesses.add(new Access(Data.FAVORITES,
+                    action.getTitle(), true));
+            case VIEW_COMMAND -> {
+                accesses.add(new Access(Data.VIEWS, action.getTitle(), true));
+
+                if (action.getVideo() != null) {
+                    for (int genre : action.getVideo().getGenreOrdinals()) {
+                        accesses.add(new Access(Data.GENRES, genre, true));
+                    }
+                }
+            }
+            case RATING_COMMAND -> accesses.add(new Access(Data.RATINGS, action.getTitle(), true));
+            case AVERAGE_QUERY, RATINGS_QUERY, BEST_UNSEEN_RECOMMENDATION ->
+                    accesses.add(new Access(Data.RATINGS, null, false));
+            case FAVORITE_QUERY, FAVORITE_RECOMMENDATION ->
+                    accesses.add(new Access(Data.FAVORITES, null, false));
+            case MOST_VIEWED_QUERY -> accesses.add(new Access(Data.VIEWS, null, false));
+            case NUM_RATINGS_QUERY -> accesses.add(new Access(Data.USER, null, false));
+            case POPULAR_RECOMMENDATION -> accesses.add(new Access(Data.GENRES, null, false));
+            default -> {
+            }
+        }
+
+        return accesses;
+    }
+
+    /**
+     * Remembers the actions that read or changed one type of data.
+     */
+    private static final class Tracker {
+        /**
+         * The last action that changed every key.
+         */
+        private final HashMap<Object, CompletableFuture<?>> lastWriters = new HashMap<>();
+        /**
+         * The actions that read a key after its last change.
+         */
+        private final HashMap<Object, List<CompletableFuture<?>>> readers = new HashMap<>();
+        /**
+         * The actions that read all the keys.
+         */
+        private final List<CompletableFuture<?>> allReaders = new ArrayList<>();
+        /**
+         * The actions that changed a key after the last read of all the keys.
+         */
+        private final List<CompletableFuture<?>> newWriters = new ArrayList<>();
+        /**
+         * Completes after all the actions that changed a key before the last
+         * read of all the keys.
+         */
+        private CompletableFuture<?> oldWriters = DONE;
+
+        /**
+         * Adds the earlier actions that the access must wait for.
+         */
+        private void addDependencies(final Access access,
+                                     final List<CompletableFuture<?>> dependencies) {
+            if (access.key == null) {
+                newWriters.removeIf(CompletableFuture::isDone);
+                oldWriters = CompletableFuture.allOf(oldWriters,
+                        CompletableFuture.allOf(newWriters.toArray(new CompletableFuture<?>[0])));
+                newWriters.clear();
+                dependencies.add(oldWriters);
+                return;
+            }
+
+            CompletableFuture<?> lastWriter = lastWriters.get(access.key);
+            if (lastWriter != null) {
+                dependencies.add(lastWriter);
+            }
+
+            if (access.write) {
+                dependencies.addAll(readers.getOrDefault(access.key, List.of()));
+                allReaders.removeIf(CompletableFuture::isDone);
+                dependencies.addAll(allReaders);
+            }
+        }
+
+        /**
+         * Remembers the action, so the next actions can wait for it.
+         */
+        private void register(final Access access, final CompletableFuture<?> execution) {
+            if (access.key == null) {
+                allReaders.add(execution);
+            } else if (access.write) {
+                lastWriters.put(access.key, execution);
+                readers.remove(access.key);
+                newWriters.add(execution);
+            } else {
+                List<CompletableFuture<?>> keyReaders = readers.computeIfAbsent(access.key,
+                        key -> new ArrayList<>());
+                keyReaders.removeIf(CompletableFuture::isDone);
+                keyReaders.add(execution);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package action;
+
+import org.json.simple.JSONValue;
+import utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The latencies of the actions of an input file, in a histogram for every
+ * operation (every command, query criterion and recommendation type).<br>
+ * Recording a latency doesn't take a lock, so the actions executed in
+ * parallel can record their latencies at the same time.<br>
+ * The report is a JSON object with the number of actions, the time spent
+ * reading the database and executing the actions and, for every operation
+ * that was executed, its count, total time, inverse mean latency (count /
+ * total time, in operations per second; not a throughput, since the actions
+ * can overlap) and latencies (p50, p99, p999 and max, in nanoseconds).
+ */
+public final class LatencyStats {
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+
+    public LatencyStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @param operation the operation of the action
+     * @param nanos how long the action took
+     */
+    public void record(final Operation operation, final long nanos) {
+        histograms[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Writes the report.
+     * @param path the report file
+     * @param input the input file
+     * @param databaseNanos the time spent reading and building the database
+     * @param actionsNanos the time spent reading and executing the actions
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeReport(final String path, final String input, final long databaseNanos,
+                            final long actionsNanos) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long actions = 0;
+
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histograms[operation.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getCount());
+            stats.put("totalNanos", histogram.getTotal());
+            stats.put("inverseMeanLatency", perSecond(histogram.getCount(), histogram.getTotal()));
+            stats.put("p50", histogram.getPercentile(P50));
+            stats.put("p99", histogram.getPercentile(P99));
+            stats.put("p999", histogram.getPercentile(P999));
+            stats.put("max", histogram.getMax());
+            operations.put(operation.name(), stats);
+
+            actions += histogram.getCount();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("input", input);
+        report.put("actions", actions);
+        report.put("databaseNanos", databaseNanos);
+        report.put("actionsNanos", actionsNanos);
+        report.put("actionsPerSecond", perSecond(actions, actionsNanos));
+        report.put("operations", operations);
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            JSONValue.writeJSONString(report, writer);
+        }
+    }
+
+    private static double perSecond(final long count, final long nanos) {
+        return nanos == 0 ? 0 : count * NANOS_PER_SECOND / nanos;
+    }
+}
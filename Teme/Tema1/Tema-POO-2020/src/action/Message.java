@@ -0,0 +1,62 @@
+package action;
+
+import java.util.List;
+
+/**
+ * The message of an action, kept in the parts it is made of, so the writer can
+ * encode it directly in the output file instead of building it as a string
+ * first.<br>
+ * A message is either a plain text or a prefix followed by a list of names
+ * (written like ArrayList.toString does: "[a, b, c]").
+ */
+public final class Message {
+    private final String text;
+    /**
+     * The names written after the text (null if the message is only the text).
+     */
+    private final List<String> items;
+
+    private Message(final String text, final List<String> items) {
+        this.text = text;
+        this.items = items;
+    }
+
+    /**
+     * @param text the whole message
+     * @return the message, or null if the text is null
+     */
+    public static Message of(final String text) {
+        return text == null ? null : new Message(text, null);
+    }
+
+    /**
+     * @param prefix the text before the list
+     * @param items the names in the list (they must not be changed afterwards)
+     * @return the message "prefix[item1, item2, ...]"
+     */
+    public static Message list(final String prefix, final List<String> items) {
+        return new Message(prefix, items);
+    }
+
+    /**
+     * @return the whole message if it is plain text or the prefix of the list
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the names of the list or null if the message is plain text
+     */
+    public List<String> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the message as one string
+     */
+    @Override
+    public String toString() {
+        return items == null ? text : text + items;
+    }
+}
@@ -0,0 +1,87 @@
+package action;
+
+import static common.Constants.AVERAGE;
+import static common.Constants.AWARDS;
+import static common.Constants.BEST_UNSEEN;
+import static common.Constants.COMMAND;
+import static common.Constants.FAVORITE;
+import static common.Constants.FILTER_DESCRIPTIONS;
+import static common.Constants.LONGEST;
+import static common.Constants.MOST_VIEWED;
+import static common.Constants.NUM_RATINGS;
+import static common.Constants.POPULAR;
+import static common.Constants.QUERY;
+import static common.Constants.RATING;
+import static common.Constants.RATINGS;
+import static common.Constants.RECOMMENDATION;
+import static common.Constants.SEARCH;
+import static common.Constants.STANDARD;
+import static common.Constants.VIEW;
+
+/**
+ * What an action does: its action type together with its type (for
+ * commands and recommendations) or its criteria (for queries).
+ */
+public enum Operation {
+    FAVORITE_COMMAND, VIEW_COMMAND, RATING_COMMAND,
+    AVERAGE_QUERY, AWARDS_QUERY, DESCRIPTION_QUERY, RATINGS_QUERY, FAVORITE_QUERY,
+    LONGEST_QUERY, MOST_VIEWED_QUERY, NUM_RATINGS_QUERY,
+    STANDARD_RECOMMENDATION, BEST_UNSEEN_RECOMMENDATION, POPULAR_RECOMMENDATION,
+    FAVORITE_RECOMMENDATION, SEARCH_RECOMMENDATION,
+    /**
+     * An action that does nothing (its result is null).
+     */
+    UNKNOWN;
+
+    /**
+     * @param actionType the action type (command / query / recommendation)
+     * @param type the type of a command or of a recommendation
+     * @param criteria the criteria of a query
+     * @return the operation of the action
+     */
+    public static Operation of(final String actionType, final String type,
+                               final String criteria) {
+        if (actionType == null) {
+            return UNKNOWN;
+        }
+
+        return switch (actionType) {
+            case (COMMAND) -> type == null ? UNKNOWN : switch (type) {
+                case (FAVORITE) -> FAVORITE_COMMAND;
+                case (VIEW) -> VIEW_COMMAND;
+                case (RATING) -> RATING_COMMAND;
+                default -> UNKNOWN;
+            };
+            case (QUERY) -> criteria == null ? UNKNOWN : switch (criteria) {
+                case (AVERAGE) -> AVERAGE_QUERY;
+                case (AWARDS) -> AWARDS_QUERY;
+                case (FILTER_DESCRIPTIONS) -> DESCRIPTION_QUERY;
+                case (RATINGS) -> RATINGS_QUERY;
+                case (FAVORITE) -> FAVORITE_QUERY;
+                case (LONGEST) -> LONGEST_QUERY;
+                case (MOST_VIEWED) -> MOST_VIEWED_QUERY;
+                case (NUM_RATINGS) -> NUM_RATINGS_QUERY;
+                default -> UNKNOWN;
+            };
+            case (RECOMMENDATION) -> type == null ? UNKNOWN : switch (type) {
+                case (STANDARD) -> STANDARD_RECOMMENDATION;
+                case (BEST_UNSEEN) -> BEST_UNSEEN_RECOMMENDATION;
+                case (POPULAR) -> POPULAR_RECOMMENDATION;
+                case (FAVORITE) -> FAVORITE_RECOMMENDATION;
+                case (SEARCH) -> SEARCH_RECOMMENDATION;
+                default -> UNKNOWN;
+            };
+            default -> UNKNOWN;
+        };
+    }
+
+    public boolean isCommand() {
+        return this == FAVORITE_COMMAND || this == VIEW_COMMAND || this == RATING_COMMAND;
+    }
+
+    public boolean isRecommendation() {
+        return this == STANDARD_RECOMMENDATION || this == BEST_UNSEEN_RECOMMENDATION
+                || this == POPULAR_RECOMMENDATION || this == FAVORITE_RECOMMENDATION
+                || this == SEARCH_RECOMMENDATION;
+    }
+}
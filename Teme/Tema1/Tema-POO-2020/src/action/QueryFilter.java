@@ -0,0 +1,117 @@
+package action;
+
+import entertainment.Video;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The year and genre filters of a query, read once from the strings of the
+ * action: the year as an int and the genres as a bitmask (one bit for every
+ * Genre, by its ordinal).<br>
+ * A genre that isn't written as Utils.genreToString writes it has no bit,
+ * so it is still compared to the names of the genres of a video.<br>
+ * Checking a video doesn't allocate anything.
+ */
+public final class QueryFilter {
+    /**
+     * Lets every video through.
+     */
+    public static final QueryFilter NONE = new QueryFilter(null, null);
+
+    private final boolean anyYear;
+    /**
+     * False if the year filter can't be the year of any video.
+     */
+    private final boolean validYear;
+    private final int year;
+    private final boolean anyGenre;
+    private final int genreMask;
+    private final String[] otherGenres;
+
+    /**
+     * @param yearFilter the year filter (null for any year)
+     * @param genresFilter the genre filters (null or a list that starts with
+     *                     null, for any genre)
+     */
+    public QueryFilter(final String yearFilter, final List<String> genresFilter) {
+        this.anyYear = yearFilter == null;
+        int parsedYear = 0;
+        boolean parsed = anyYear;
+
+        if (!anyYear) {
+            try {
+                parsedYear = Integer.parseInt(yearFilter);
+                // the year of a video is compared to the filter as a string
+                parsed = Integer.toString(parsedYear).equals(yearFilter);
+            } catch (NumberFormatException e) {
+                parsed = false;
+            }
+        }
+
+        this.year = parsedYear;
+        this.validYear = parsed;
+        this.anyGenre = genresFilter == null || genresFilter.get(0) == null;
+
+        int mask = 0;
+        ArrayList<String> others = new ArrayList<>();
+        if (!anyGenre) {
+            for (String genreName : genresFilter) {
+                int bit = Utils.genreBit(genreName);
+
+                if (bit != 0) {
+                    mask |= bit;
+                } else if (genreName != null) {
+                    others.add(genreName);
+                }
+            }
+        }
+
+        this.genreMask = mask;
+        this.otherGenres = others.toArray(new String[0]);
+    }
+
+    /**
+     * @return true if the filter lets every video through
+     */
+    public boolean isEmpty() {
+        return anyYear && anyGenre;
+    }
+
+    /**
+     * @param video the video
+     * @return true if the video respects the filters
+     */
+    public boolean matches(final Video video) {
+        return matchesYear(video.getYear()) && matchesGenres(video.getGenreMask(), video);
+    }
+
+    /**
+     * @param videoYear the year of a video
+     * @return true if the year respects the year filter
+     */
+    public boolean matchesYear(final int videoYear) {
+        return anyYear || (validYear && videoYear == year);
+    }
+
+    /**
+     * @param videoGenreMask the genre bitmask of the video
+     * @param video the video (its genre names are used only for the genres
+     *              of the filter that have no bit)
+     * @return true if the video has at least one of the genres of the filter
+     */
+    public boolean matchesGenres(final int videoGenreMask, final Video video) {
+        if (anyGenre || (videoGenreMask & genreMask) != 0) {
+            return true;
+        }
+
+        for (String genreName : otherGenres) {
+            if (video.getGenres().contains(genreName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
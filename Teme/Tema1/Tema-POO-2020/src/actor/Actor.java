@@ -1,7 +1,9 @@
 package actor;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Objects;
 
 import database.VideoDatabase;
 import entertainment.Video;
@@ -14,14 +16,19 @@ public final class Actor {
     private final String name;
     private final String careerDescription;
     /**
-     * Set of films the actor played in.
+     * The ids of the films the actor played in (only the ones that are in
+     * the video database).
      */
-    private final HashSet<String> filmography = new HashSet<>();
+    private final int[] filmography;
     /**
      * The awards an actor has received.<br>
      * Maps the award with the number of times it was awarded.
      */
     private final HashMap<ActorsAwards, Integer> awards = new HashMap<>();
+    /**
+     * The awards an actor has received, without the number of times.
+     */
+    private final EnumSet<ActorsAwards> awardSet = EnumSet.noneOf(ActorsAwards.class);
     /**
      * Average rating based on all the films (the actor played in) that have
      * been rated at least once.
@@ -29,11 +36,21 @@ public final class Actor {
     private Double averageRating = 0d;
     private int totalAwards = 0;
 
-    public Actor(final ActorInputData actorData) {
+    public Actor(final ActorInputData actorData, final VideoDatabase videoDatabase) {
         this.name = actorData.getName();
         this.careerDescription = actorData.getCareerDescription();
-        this.filmography.addAll(actorData.getFilmography());
+        // the titles are deduplicated in a HashSet that is filled like the
+        // old HashSet<String> field was (empty, then addAll), so it has the
+        // same capacity and the grades are summed in the same order
+        HashSet<String> titles = new HashSet<>();
+        titles.addAll(actorData.getFilmography());
+        this.filmography = titles.stream()
+                .map(title -> videoDatabase.getVideoDatabase().get(title))
+                .filter(Objects::nonNull)
+                .mapToInt(Video::getId)
+                .toArray();
         this.awards.putAll(actorData.getAwards());
+        this.awards.keySet().stream().filter(Objects::nonNull).forEach(awardSet::add);
         computeTotalAwards();
     }
 
@@ -47,10 +64,10 @@ public final class Actor {
         double sumGrade = 0;
         int ratedVideos = 0;
 
-        for (String title : this.getFilmography()) {
-            Video video = videoDatabase.getVideoDatabase().get(title);
+        for (int id : filmography) {
+            Video video = videoDatabase.getVideo(id);
 
-            if (video != null && video.getAvgRating() > 0) {
+            if (video.getAvgRating() > 0) {
                 sumGrade += video.getAvgRating();
                 ratedVideos++;
             }
@@ -85,6 +102,10 @@ public final class Actor {
         return awards;
     }
 
+    public EnumSet<ActorsAwards> getAwardSet() {
+        return awardSet;
+    }
+
     public void setAverageRating(final Double averageRating) {
         this.averageRating = averageRating;
     }
@@ -93,7 +114,10 @@ public final class Actor {
         return averageRating;
     }
 
-    public HashSet<String> getFilmography() {
+    /**
+     * @return the ids of the videos the actor played in (must not be modified)
+     */
+    public int[] getFilmography() {
         return filmography;
     }
 }
@@ -0,0 +1,199 @@
+package benchmark;
+
+import action.Action;
+import action.Operation;
+import database.ActionDatabase;
+import database.ActorDatabase;
+import database.GenreDatabase;
+import database.UserDatabase;
+import database.VideoDatabase;
+import fileio.ActionInputData;
+import fileio.Input;
+import fileio.InputLoader;
+import fileio.StreamingInputLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures every operation that Action.executeAction handles (every command,
+ * query criterion and recommendation type), the construction of the
+ * databases and the reading of an input file.<br>
+ * Runs once for every combination of the parameters, given as system
+ * properties (lists are separated by commas):
+ * <ul>
+ * <li>benchmark.videos - the numbers of videos (default 1000,10000)</li>
+ * <li>benchmark.users - the numbers of users (default 1000)</li>
+ * <li>benchmark.history - the history lengths of the users (default 20)</li>
+ * <li>benchmark.actions - the mean number of actions of every operation in a
+ * round (default 256)</li>
+ * <li>benchmark.warmup / benchmark.rounds - the number of warmup and
+ * measured rounds (default 5 / 10)</li>
+ * <li>benchmark.filter - only the benchmarks whose name contains it</li>
+ * </ul>
+ * The input is written by WorkloadGenerator in a temporary file (with the
+ * default skew and the same weight for every operation). Every round of an
+ * operation starts from freshly built databases, so the commands of one round
+ * don't change what the next round sees.<br>
+ * Usage: java -cp classes:libs/* -Dbenchmark.videos=1000 benchmark.Benchmarks
+ */
+public final class Benchmarks {
+    private static final String VIDEOS = System.getProperty("benchmark.videos", "1000,10000");
+    private static final String USERS = System.getProperty("benchmark.users", "1000");
+    private static final String HISTORY = System.getProperty("benchmark.history", "20");
+    private static final int ACTIONS = Integer.getInteger("benchmark.actions", 256);
+    private static final int WARMUP = Integer.getInteger("benchmark.warmup", 5);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 10);
+    private static final String FILTER = System.getProperty("benchmark.filter", "");
+
+    /**
+     * for coding style
+     */
+    private Benchmarks() {
+    }
+
+    /**
+     * The databases built from an input, and its actions compiled against
+     * them.
+     */
+    private static final class State {
+        private final GenreDatabase genreDatabase = new GenreDatabase();
+        private final VideoDatabase videoDatabase;
+        private final UserDatabase userDatabase;
+        private final ActorDatabase actorDatabase;
+        private final List<Action> actions = new ArrayList<>();
+
+        private State(final Input input, final List<ActionInputData> actionsData) {
+            videoDatabase = new VideoDatabase(input.getMovies(), input.getSerials());
+            userDatabase = new UserDatabase(input.getUsers(), videoDatabase, genreDatabase);
+            actorDatabase = new ActorDatabase(input.getActors(), videoDatabase);
+
+            ActionDatabase actionDatabase = new ActionDatabase(userDatabase, videoDatabase);
+            for (ActionInputData actionData : actionsData) {
+                actions.add(actionDatabase.compile(actionData));
+            }
+        }
+
+        private Object execute(final int index) {
+            return actions.get(index).executeAction(actorDatabase, userDatabase,
+                    videoDatabase, genreDatabase);
+        }
+    }
+
+    /**
+     * Runs all the benchmarks.
+     * @param args not used
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(final String[] args) throws Exception {
+        Harness harness = new Harness(WARMUP, ROUNDS);
+
+        for (int videos : parse(VIDEOS)) {
+            for (int users : parse(USERS)) {
+                for (int history : parse(HISTORY)) {
+                    System.out.printf("%nvideos=%d users=%d history=%d%n", videos, users,
+                            history);
+                    Harness.printHeader();
+                    run(harness, videos, users, history);
+                }
+            }
+        }
+
+        System.out.println("\n(" + harness.getSink() + ")");
+    }
+
+    private static void run(final Harness harness, final int videos, final int users,
+                            final int history) throws Exception {
+        Path file = Files.createTempFile("benchmark", ".json");
+
+        try {
+            int operations = WorkloadGenerator.uniformMix().size();
+            new WorkloadGenerator(WorkloadGenerator.DEFAULT_SEED, videos, users, history,
+                    ACTIONS * operations, WorkloadGenerator.DEFAULT_ZIPF_EXPONENT,
+                    WorkloadGenerator.DEFAULT_ACTIVITY_ALPHA, WorkloadGenerator.uniformMix())
+                    .write(file);
+            String path = file.toString();
+
+            Input input = new InputLoader(path).readData();
+            Map<Operation, List<ActionInputData>> actionsByOperation =
+                    new EnumMap<>(Operation.class);
+            for (ActionInputData actionData : input.getCommands()) {
+                actionsByOperation.computeIfAbsent(Operation.of(actionData.getActionType(),
+                        actionData.getType(), actionData.getCriteria()),
+                        operation -> new ArrayList<>()).add(actionData);
+            }
+
+            if (selected("InputLoader.readData")) {
+                harness.run("InputLoader.readData", 1, () -> null,
+                        (state, i) -> new InputLoader(path).readData());
+            }
+            if (selected("StreamingInputLoader")) {
+                harness.run("StreamingInputLoader", 1, () -> null,
+                        (state, i) -> readStreaming(path));
+            }
+            if (selected("VideoDatabase")) {
+                harness.run("VideoDatabase", 1, () -> null,
+                        (state, i) -> new VideoDatabase(input.getMovies(), input.getSerials()));
+            }
+            if (selected("UserDatabase")) {
+                harness.run("UserDatabase", 1,
+                        () -> new VideoDatabase(input.getMovies(), input.getSerials()),
+                        (videoDatabase, i) -> new UserDatabase(input.getUsers(), videoDatabase,
+                                new GenreDatabase()));
+            }
+            if (selected("ActorDatabase")) {
+                harness.run("ActorDatabase", 1,
+                        () -> new VideoDatabase(input.getMovies(), input.getSerials()),
+                        (videoDatabase, i) -> new ActorDatabase(input.getActors(),
+                                videoDatabase));
+            }
+
+            for (Map.Entry<Operation, List<ActionInputData>> entry
+                    : actionsByOperation.entrySet()) {
+                String name = "execute." + entry.getKey();
+
+                if (selected(name)) {
+                    harness.run(name, entry.getValue().size(),
+                            () -> new State(input, entry.getValue()),
+                            State::execute);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Reads the database and all the actions of a file, like Main does.
+     */
+    private static int readStreaming(final String path) throws IOException {
+        try (StreamingInputLoader loader = new StreamingInputLoader(path)) {
+            loader.readDatabase();
+
+            int actions = 0;
+            while (loader.nextAction() != null) {
+                actions++;
+            }
+            return actions;
+        }
+    }
+
+    private static boolean selected(final String name) {
+        return name.contains(FILTER);
+    }
+
+    private static List<Integer> parse(final String values) {
+        List<Integer> numbers = new ArrayList<>();
+
+        for (String value : values.split(",")) {
+            numbers.add(Integer.parseInt(value.trim()));
+        }
+
+        return numbers;
+    }
+}
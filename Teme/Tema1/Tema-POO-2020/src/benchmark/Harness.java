@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Measures how long an operation takes.<br>
+ * A benchmark is run for a number of warmup rounds (not reported, so the JIT
+ * compiles the code first) and then for a number of measured rounds. Every
+ * round prepares its state (not timed) and then runs the operation a number
+ * of times in a row (timed); the time of a round divided by the number of
+ * operations is the time of one operation in that round.<br>
+ * The results of the operations are consumed, so the JIT can't remove them.
+ */
+final class Harness {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final int warmupRounds;
+    private final int rounds;
+    /**
+     * Everything the operations returned, combined.
+     */
+    private long sink = 0;
+
+    /**
+     * The operation that is measured.
+     * @param <S> the state prepared for every round
+     */
+    interface Body<S> {
+        /**
+         * @param state the state of the round
+         * @param index the number of the operation in the round
+         * @return anything (it is consumed)
+         * @throws Exception the benchmark is stopped
+         */
+        Object run(S state, int index) throws Exception;
+    }
+
+    Harness(final int warmupRounds, final int rounds) {
+        this.warmupRounds = warmupRounds;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Runs a benchmark and prints its result.
+     * @param name the name of the benchmark
+     * @param operations the number of operations in a round
+     * @param setup prepares the state of a round (not timed)
+     * @param body the operation
+     * @param <S> the state prepared for every round
+     * @throws Exception if the setup or the operation fails
+     */
+    <S> void run(final String name, final int operations, final Callable<S> setup,
+                 final Body<S> body) throws Exception {
+        double[] nanosPerOperation = new double[rounds];
+
+        for (int round = -warmupRounds; round < rounds; round++) {
+            S state = setup.call();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                sink += Objects.hashCode(body.run(state, i));
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (round >= 0) {
+                nanosPerOperation[round] = (double) elapsed / operations;
+            }
+        }
+
+        report(name, operations, nanosPerOperation);
+    }
+
+    private void report(final String name, final int operations,
+                        final double[] nanosPerOperation) {
+        double[] sorted = nanosPerOperation.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        double median = sorted.length == 0 ? 0 : sorted[sorted.length / 2];
+        double best = sorted.length == 0 ? 0 : sorted[0];
+
+        System.out.printf("%-36s %8d %14.1f %14.1f %14.1f %14.1f%n", name, operations,
+                mean, median, best, mean == 0 ? 0 : NANOS_PER_SECOND / mean);
+    }
+
+    /**
+     * Prints the header of the results.
+     */
+    static void printHeader() {
+        System.out.printf("%-36s %8s %14s %14s %14s %14s%n", "benchmark", "ops",
+                "mean ns/op", "median ns/op", "best ns/op", "ops/s");
+    }
+
+    /**
+     * @return everything the operations returned, combined (printed at the
+     * end, so it is used)
+     */
+    long getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,632 @@
+package benchmark;
+
+import action.Operation;
+import actor.ActorsAwards;
+import common.Constants;
+import entertainment.Genre;
+import org.json.simple.JSONValue;
+import utils.Utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes an input file in the same format as the tests (the format read by
+ * InputLoader and StreamingInputLoader), of any size.<br>
+ * The same settings and seed always give the same file.<br>
+ * The workload is skewed like a real one:
+ * <ul>
+ * <li>the popularity of the videos follows a Zipf distribution (the video of
+ * rank r is picked with a probability proportional to 1 / r^zipfExponent);
+ * the ranks are shuffled, so the popular videos are spread over the
+ * catalog</li>
+ * <li>the activity of the users is heavy-tailed (Pareto with the given
+ * alpha): a few users have very long histories and do most of the
+ * actions</li>
+ * <li>every operation has a weight in the mix of actions</li>
+ * </ul>
+ * Only the videos and the histories of the users are kept in memory while
+ * writing; the actors, users and actions are written one at a time.<br>
+ * Usage: java -cp classes:libs/* [-Dgenerator.videos=100000 ...]
+ * benchmark.WorkloadGenerator output.json<br>
+ * Settings (system properties): generator.seed, generator.videos,
+ * generator.users, generator.history (the mean history length),
+ * generator.actions, generator.zipf (the Zipf exponent), generator.activity
+ * (the Pareto alpha, greater than 1) and generator.mix (the weights of the
+ * operations, e.g. "VIEW_COMMAND=5,RATINGS_QUERY=1"; the operations that are
+ * not given have weight 0; by default every operation has weight 1).
+ */
+public final class WorkloadGenerator {
+    public static final long DEFAULT_SEED = 42;
+    public static final double DEFAULT_ZIPF_EXPONENT = 1.0;
+    public static final double DEFAULT_ACTIVITY_ALPHA = 1.5;
+    private static final int DEFAULT_VIDEOS = 1000;
+    private static final int DEFAULT_USERS = 1000;
+    private static final int DEFAULT_HISTORY = 20;
+    private static final int DEFAULT_ACTIONS = 10000;
+
+    private static final int ACTORS_PER_VIDEOS = 4;
+    private static final int SHOWS_PER_VIDEOS = 3;
+    private static final int CAST = 3;
+    private static final int MAX_GENRES = 3;
+    private static final int MAX_SEASONS = 5;
+    private static final int FIRST_YEAR = 1990;
+    private static final int YEARS = 31;
+    private static final int MIN_DURATION = 20;
+    private static final int DURATIONS = 160;
+    private static final int MAX_VIEWS = 5;
+    private static final int FAVORITES_PER_HISTORY = 4;
+    private static final int DESCRIPTION_WORDS = 20;
+    private static final int MAX_AWARDS = 5;
+    private static final int MAX_GRADE = 10;
+    private static final int QUERY_NUMBER = 10;
+    /**
+     * One query in this many has no "number" (it asks for all the results).
+     */
+    private static final int ALL_RESULTS_QUERIES = 10;
+    /**
+     * One rating / favorite command in this many is for a random video (most
+     * likely not seen by the user); the others are for a video the user has
+     * seen.
+     */
+    private static final int UNSEEN_COMMANDS = 4;
+    /**
+     * A history is drawn from the popular videos; after this many draws for
+     * every video of the history, it stops (with a shorter history).
+     */
+    private static final int DRAWS_PER_VIDEO = 8;
+    private static final String ASCENDING = "asc";
+    private static final String[] WORDS = {"actor", "actress", "director", "producer",
+        "american", "british", "award", "nominated", "film", "television", "stage",
+        "comedy", "drama", "role", "known", "best", "career", "born", "played", "series"};
+
+    private final Random random;
+    private final int videos;
+    private final int users;
+    private final int meanHistory;
+    private final int actions;
+    private final double zipfExponent;
+    private final double activityAlpha;
+    private final Map<Operation, Double> mix;
+    private final String[] genres = new String[Genre.values().length];
+
+    private final int nrMovies;
+    private final int[] years;
+    /**
+     * The duration of every movie (not used for shows).
+     */
+    private final int[] durations;
+    /**
+     * The number of seasons of every video (0 for a movie).
+     */
+    private final int[] seasons;
+    private final int[][] videoGenres;
+    private final int[][] casts;
+    /**
+     * The cumulative popularity of the videos, by rank.
+     */
+    private final double[] popularity;
+    /**
+     * The video of every rank.
+     */
+    private final int[] videoOfRank;
+    /**
+     * The cumulative activity of the users.
+     */
+    private double[] activity;
+    /**
+     * The videos seen by every user.
+     */
+    private int[][] histories;
+    private final double[] operationWeights;
+    private final Operation[] operations;
+
+    /**
+     * @param seed the seed of the random numbers
+     * @param videos the number of movies and shows
+     * @param users the number of users
+     * @param meanHistory the mean number of videos a user has seen
+     * @param actions the number of actions
+     * @param zipfExponent the skew of the popularity of the videos (0 means
+     *                     that all videos are equally popular)
+     * @param activityAlpha the Pareto alpha of the activity of the users (must
+     *                      be greater than 1; a smaller alpha means a
+     *                      heavier tail)
+     * @param mix the weight of every operation (the ones that are not in it
+     *            have weight 0)
+     */
+    public WorkloadGenerator(final long seed, final int videos, final int users,
+                             final int meanHistory, final int actions,
+                             final double zipfExponent, final double activityAlpha,
+                             final Map<Operation, Double> mix) {
+        if (videos < 1 || users < 0 || meanHistory < 0 || actions < 0) {
+            throw new IllegalArgumentException("Negative size or no videos");
+        }
+        if (actions > 0 && users < 1) {
+            throw new IllegalArgumentException("There are actions, but no users");
+        }
+        if (activityAlpha <= 1) {
+            throw new IllegalArgumentException("The activity alpha must be greater than 1");
+        }
+
+        this.random = new Random(seed);
+        this.videos = videos;
+        this.users = users;
+        this.meanHistory = Math.min(meanHistory, videos);
+        this.actions = actions;
+        this.zipfExponent = zipfExponent;
+        this.activityAlpha = activityAlpha;
+        this.mix = new EnumMap<>(mix);
+        this.mix.remove(Operation.UNKNOWN);
+
+        if (actions > 0 && this.mix.values().stream().noneMatch(weight -> weight > 0)) {
+            throw new IllegalArgumentException("No operation has a positive weight");
+        }
+
+        for (Genre genre : Genre.values()) {
+            genres[genre.ordinal()] = Utils.genreToString(genre);
+        }
+
+        nrMovies = videos - videos / SHOWS_PER_VIDEOS;
+        years = new int[videos];
+        durations = new int[videos];
+        seasons = new int[videos];
+        videoGenres = new int[videos][];
+        casts = new int[videos][];
+        popularity = new double[videos];
+        videoOfRank = new int[videos];
+        operations = this.mix.keySet().toArray(new Operation[0]);
+        operationWeights = new double[operations.length];
+    }
+
+    /**
+     * @return every operation (except UNKNOWN) with weight 1
+     */
+    public static Map<Operation, Double> uniformMix() {
+        Map<Operation, Double> mix = new EnumMap<>(Operation.class);
+
+        for (Operation operation : Operation.values()) {
+            if (operation != Operation.UNKNOWN) {
+                mix.put(operation, 1.0);
+            }
+        }
+
+        return mix;
+    }
+
+    /**
+     * @param mix the weights, as "OPERATION=weight" separated by commas
+     * @return the weights of the operations
+     */
+    public static Map<Operation, Double> parseMix(final String mix) {
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Wrong mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+        }
+
+        return weights;
+    }
+
+    /**
+     * Writes an input file, with the settings given as system properties.
+     * @param args the path of the file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: benchmark.WorkloadGenerator <output file>");
+            return;
+        }
+
+        String mix = System.getProperty("generator.mix");
+        new WorkloadGenerator(Long.getLong("generator.seed", DEFAULT_SEED),
+                Integer.getInteger("generator.videos", DEFAULT_VIDEOS),
+                Integer.getInteger("generator.users", DEFAULT_USERS),
+                Integer.getInteger("generator.history", DEFAULT_HISTORY),
+                Integer.getInteger("generator.actions", DEFAULT_ACTIONS),
+                Double.parseDouble(System.getProperty("generator.zipf",
+                        Double.toString(DEFAULT_ZIPF_EXPONENT))),
+                Double.parseDouble(System.getProperty("generator.activity",
+                        Double.toString(DEFAULT_ACTIVITY_ALPHA))),
+                mix == null ? uniformMix() : parseMix(mix))
+                .write(Paths.get(args[0]));
+    }
+
+    /**
+     * Writes the input file.
+     * @param path the file
+     * @throws IOException in case of exceptions to writing
+     */
+    public void write(final Path path) throws IOException {
+        int actors = Math.max(1, videos / ACTORS_PER_VIDEOS);
+        generateVideos(actors);
+        generatePopularity();
+
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\"" + Constants.DATABASE + "\":{");
+
+            writer.write("\"" + Constants.ACTORS + "\":[");
+            writeActors(writer, actors);
+            writer.write("],\"" + Constants.MOVIES + "\":[");
+            for (int video = 0; video < nrMovies; video++) {
+                writeElement(writer, video, movie(video));
+            }
+            writer.write("],\"" + Constants.SHOWS + "\":[");
+            for (int video = nrMovies; video < videos; video++) {
+                writeElement(writer, video - nrMovies, show(video));
+            }
+            writer.write("],\"" + Constants.USERS + "\":[");
+            writeUsers(writer);
+            writer.write("]},\"" + Constants.ACTIONS + "\":[");
+            writeActions(writer);
+            writer.write("]}");
+        }
+    }
+
+    private static void writeElement(final Writer writer, final int index,
+                                     final Map<String, Object> element) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        JSONValue.writeJSONString(element, writer);
+    }
+
+    private String title(final int video) {
+        return video < nrMovies ? "movie_" + video : "show_" + (video - nrMovies);
+    }
+
+    /**
+     * Draws the years, durations, seasons, genres and casts of the videos.
+     */
+    private void generateVideos(final int actors) {
+        for (int video = 0; video < videos; video++) {
+            years[video] = FIRST_YEAR + random.nextInt(YEARS);
+
+            if (video < nrMovies) {
+                durations[video] = MIN_DURATION + random.nextInt(DURATIONS);
+            } else {
+                seasons[video] = 1 + random.nextInt(MAX_SEASONS);
+            }
+
+            videoGenres[video] = distinct(1 + random.nextInt(MAX_GENRES), genres.length);
+            casts[video] = distinct(Math.min(CAST, actors), actors);
+        }
+    }
+
+    /**
+     * @return "count" distinct numbers from 0 to bound - 1
+     */
+    private int[] distinct(final int count, final int bound) {
+        Set<Integer> numbers = new LinkedHashSet<>();
+
+        while (numbers.size() < count) {
+            numbers.add(random.nextInt(bound));
+        }
+
+        return numbers.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Shuffles the ranks of the videos and computes their cumulative
+     * popularity.
+     */
+    private void generatePopularity() {
+        for (int rank = 0; rank < videos; rank++) {
+            videoOfRank[rank] = rank;
+        }
+        for (int rank = videos - 1; rank > 0; rank--) {
+            int other = random.nextInt(rank + 1);
+            int video = videoOfRank[rank];
+            videoOfRank[rank] = videoOfRank[other];
+            videoOfRank[other] = video;
+        }
+
+        double total = 0;
+        for (int rank = 0; rank < videos; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            popularity[rank] = total;
+        }
+    }
+
+    /**
+     * @return a video, picked by its popularity
+     */
+    private int popularVideo() {
+        return videoOfRank[pick(popularity)];
+    }
+
+    /**
+     * @param cumulative the cumulative weights (the last one is the total)
+     * @return an index, picked with a probability proportional to its weight
+     */
+    private int pick(final double[] cumulative) {
+        double value = random.nextDouble() * cumulative[cumulative.length - 1];
+        int low = 0;
+        int high = cumulative.length - 1;
+
+        // the first index whose cumulative weight is greater than the value
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (cumulative[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return low;
+    }
+
+    private void writeActors(final Writer writer, final int actors) throws IOException {
+        List<List<String>> filmographies = new ArrayList<>();
+        for (int actor = 0; actor < actors; actor++) {
+            filmographies.add(new ArrayList<>());
+        }
+        for (int video = 0; video < videos; video++) {
+            for (int actor : casts[video]) {
+                filmographies.get(actor).add(title(video));
+            }
+        }
+
+        for (int i = 0; i < actors; i++) {
+            Map<String, Object> actor = new LinkedHashMap<>();
+            actor.put(Constants.NAME, "actor_" + i);
+
+            StringBuilder description = new StringBuilder();
+            for (int word = 0; word < DESCRIPTION_WORDS; word++) {
+                description.append(word == 0 ? "" : " ")
+                        .append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            actor.put(Constants.DESCRIPTION, description.append('.').toString());
+            actor.put(Constants.FILMOGRAPHY, filmographies.get(i));
+
+            List<Object> awards = new ArrayList<>();
+            for (ActorsAwards award : ActorsAwards.values()) {
+                if (random.nextBoolean()) {
+                    Map<String, Object> awardData = new LinkedHashMap<>();
+                    awardData.put(Constants.AWARD_TYPE, award.name());
+                    awardData.put(Constants.NUMBER_OF_AWARDS, 1 + random.nextInt(MAX_AWARDS));
+                    awards.add(awardData);
+                }
+            }
+            actor.put(Constants.AWARDS, awards);
+
+            writeElement(writer, i, actor);
+        }
+    }
+
+    private List<String> genreNames(final int video) {
+        List<String> names = new ArrayList<>();
+
+        for (int genre : videoGenres[video]) {
+            names.add(genres[genre]);
+        }
+
+        return names;
+    }
+
+    private List<String> castNames(final int video) {
+        List<String> names = new ArrayList<>();
+
+        for (int actor : casts[video]) {
+            names.add("actor_" + actor);
+        }
+
+        return names;
+    }
+
+    private Map<String, Object> movie(final int video) {
+        Map<String, Object> movie = new LinkedHashMap<>();
+        movie.put(Constants.NAME, title(video));
+        movie.put(Constants.YEAR, Integer.toString(years[video]));
+        movie.put(Constants.DURATION, durations[video]);
+        movie.put(Constants.GENRES, genreNames(video));
+        movie.put(Constants.ACTORS, castNames(video));
+
+        return movie;
+    }
+
+    private Map<String, Object> show(final int video) {
+        Map<String, Object> show = new LinkedHashMap<>();
+        show.put(Constants.NAME, title(video));
+        show.put(Constants.YEAR, Integer.toString(years[video]));
+        show.put(Constants.CAST, castNames(video));
+        show.put(Constants.GENRES, genreNames(video));
+        show.put(Constants.NUMBER_OF_SEASONS, seasons[video]);
+
+        List<Object> showSeasons = new ArrayList<>();
+        for (int season = 1; season <= seasons[video]; season++) {
+            Map<String, Object> seasonData = new LinkedHashMap<>();
+            seasonData.put(Constants.CURRENT_SEASON, season);
+            seasonData.put(Constants.DURATION, MIN_DURATION + random.nextInt(DURATIONS));
+            showSeasons.add(seasonData);
+        }
+        show.put(Constants.SEASONS, showSeasons);
+
+        return show;
+    }
+
+    /**
+     * Draws the activity of every user, its history (with a length
+     * proportional to its activity) and its favorite videos, and writes the
+     * users.
+     */
+    private void writeUsers(final Writer writer) throws IOException {
+        double meanActivity = activityAlpha / (activityAlpha - 1);
+        double total = 0;
+        activity = new double[users];
+        histories = new int[users][];
+
+        for (int i = 0; i < users; i++) {
+            double userActivity = Math.pow(1 - random.nextDouble(), -1 / activityAlpha);
+            total += userActivity;
+            activity[i] = total;
+
+            int length = (int) Math.min(videos,
+                    Math.round(meanHistory * userActivity / meanActivity));
+            Set<Integer> seen = new LinkedHashSet<>();
+            for (int draw = 0; seen.size() < length && draw < DRAWS_PER_VIDEO * length; draw++) {
+                seen.add(popularVideo());
+            }
+            histories[i] = seen.stream().mapToInt(Integer::intValue).toArray();
+
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put(Constants.USERNAME, "user_" + i);
+            user.put(Constants.SUBSCRIPTION, random.nextBoolean()
+                    ? Constants.PREMIUM : Constants.BASIC);
+
+            List<Object> history = new ArrayList<>();
+            List<String> favorites = new ArrayList<>();
+            for (int video : histories[i]) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put(Constants.NAME, title(video));
+                entry.put(Constants.NUMBER_VIEWS, 1 + random.nextInt(MAX_VIEWS));
+                history.add(entry);
+
+                if (random.nextInt(FAVORITES_PER_HISTORY) == 0) {
+                    favorites.add(title(video));
+                }
+            }
+            user.put(Constants.HISTORY, history);
+            user.put(Constants.FAVORITE_MOVIES, favorites);
+
+            writeElement(writer, i, user);
+        }
+    }
+
+    private void writeActions(final Writer writer) throws IOException {
+        double total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += Math.max(0, mix.get(operations[i]));
+            operationWeights[i] = total;
+        }
+
+        for (int id = 1; id <= actions; id++) {
+            Operation operation = operations[pick(operationWeights)];
+
+            Map<String, Object> action = new LinkedHashMap<>();
+            action.put(Constants.ID, id);
+            fillAction(action, operation);
+
+            writeElement(writer, id - 1, action);
+        }
+    }
+
+    private void fillAction(final Map<String, Object> action, final Operation operation) {
+        switch (operation) {
+            case FAVORITE_COMMAND, VIEW_COMMAND, RATING_COMMAND -> {
+                int user = pick(activity);
+                int video = operation == Operation.VIEW_COMMAND
+                        || histories[user].length == 0
+                        || random.nextInt(UNSEEN_COMMANDS) == 0
+                        ? popularVideo()
+                        : histories[user][random.nextInt(histories[user].length)];
+
+                action.put(Constants.ACTION_TYPE, Constants.COMMAND);
+                action.put(Constants.TYPE, switch (operation) {
+                    case FAVORITE_COMMAND -> Constants.FAVORITE;
+                    case VIEW_COMMAND -> Constants.VIEW;
+                    default -> Constants.RATING;
+                });
+                action.put(Constants.USER, "user_" + user);
+                action.put(Constants.TITLE, title(video));
+
+                if (operation == Operation.RATING_COMMAND) {
+                    action.put(Constants.GRADE, 1 + random.nextInt(MAX_GRADE));
+                    if (seasons[video] > 0) {
+                        action.put(Constants.SEASON, 1 + random.nextInt(seasons[video]));
+                    }
+                }
+            }
+            case STANDARD_RECOMMENDATION, BEST_UNSEEN_RECOMMENDATION, POPULAR_RECOMMENDATION,
+                    FAVORITE_RECOMMENDATION, SEARCH_RECOMMENDATION -> {
+                action.put(Constants.ACTION_TYPE, Constants.RECOMMENDATION);
+                action.put(Constants.TYPE, switch (operation) {
+                    case STANDARD_RECOMMENDATION -> Constants.STANDARD;
+                    case BEST_UNSEEN_RECOMMENDATION -> Constants.BEST_UNSEEN;
+                    case POPULAR_RECOMMENDATION -> Constants.POPULAR;
+                    case FAVORITE_RECOMMENDATION -> Constants.FAVORITE;
+                    default -> Constants.SEARCH;
+                });
+                action.put(Constants.USERNAME, "user_" + pick(activity));
+
+                if (operation == Operation.SEARCH_RECOMMENDATION) {
+                    action.put(Constants.GENRE, genres[random.nextInt(genres.length)]);
+                }
+            }
+            default -> fillQuery(action, operation);
+        }
+    }
+
+    private void fillQuery(final Map<String, Object> action, final Operation operation) {
+        action.put(Constants.ACTION_TYPE, Constants.QUERY);
+        action.put(Constants.NUMBER, random.nextInt(ALL_RESULTS_QUERIES) == 0
+                ? null : (Object) QUERY_NUMBER);
+        action.put(Constants.SORT, random.nextBoolean() ? Constants.DESCENDING : ASCENDING);
+
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put(Constants.YEAR, null);
+        filters.put(Constants.GENRE, null);
+        filters.put(Constants.WORDS, null);
+        filters.put(Constants.AWARDS, null);
+
+        switch (operation) {
+            case AVERAGE_QUERY, AWARDS_QUERY, DESCRIPTION_QUERY -> {
+                action.put(Constants.OBJECT, Constants.ACTORS);
+                action.put(Constants.CRITERIA, switch (operation) {
+                    case AVERAGE_QUERY -> Constants.AVERAGE;
+                    case AWARDS_QUERY -> Constants.AWARDS;
+                    default -> Constants.FILTER_DESCRIPTIONS;
+                });
+
+                if (operation == Operation.AWARDS_QUERY) {
+                    filters.put(Constants.AWARDS, List.of(ActorsAwards.values()[random
+                            .nextInt(ActorsAwards.values().length)].name()));
+                } else if (operation == Operation.DESCRIPTION_QUERY) {
+                    filters.put(Constants.WORDS, List.of(WORDS[random.nextInt(WORDS.length)]));
+                }
+            }
+            case NUM_RATINGS_QUERY -> {
+                action.put(Constants.OBJECT, Constants.USERS);
+                action.put(Constants.CRITERIA, Constants.NUM_RATINGS);
+            }
+            default -> {
+                action.put(Constants.OBJECT, random.nextBoolean()
+                        ? Constants.MOVIES : Constants.SHOWS);
+                action.put(Constants.CRITERIA, switch (operation) {
+                    case RATINGS_QUERY -> Constants.RATINGS;
+                    case FAVORITE_QUERY -> Constants.FAVORITE;
+                    case LONGEST_QUERY -> Constants.LONGEST;
+                    default -> Constants.MOST_VIEWED;
+                });
+
+                // half of the video queries have filters
+                if (random.nextBoolean()) {
+                    filters.put(Constants.YEAR, Integer.toString(FIRST_YEAR
+                            + random.nextInt(YEARS)));
+                    filters.put(Constants.GENRE, genres[random.nextInt(genres.length)]);
+                }
+            }
+        }
+
+        action.put(Constants.FILTERS, filters);
+    }
+}
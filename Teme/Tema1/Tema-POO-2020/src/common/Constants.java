@@ -107,4 +107,53 @@ public final class Constants {
     public static final String MOST_VIEWED = "most_viewed";
     public static final String AVERAGE = "average";
     public static final int AWARD_LIST = 3;
+    public static final int ACTION_QUEUE_CAPACITY = 1024;
+    /**
+     * The number of input files that are run at the same time
+     * (-Dvideosdb.parallelism=N, all the processors by default).
+     */
+    public static final int PARALLELISM = Integer.getInteger("videosdb.parallelism",
+            Runtime.getRuntime().availableProcessors());
+    /**
+     * If the actions of a file are run in parallel by an ActionScheduler
+     * (-Dvideosdb.parallelActions=true, one by one by default).
+     */
+    public static final boolean PARALLEL_ACTIONS = Boolean.getBoolean("videosdb.parallelActions");
+    /**
+     * The number of actions scheduled in parallel whose results are not
+     * written yet.
+     */
+    public static final int SCHEDULER_WINDOW = 1024;
+    /**
+     * If every rating is kept, not only the sum and the count of the ratings
+     * (-Dvideosdb.keepRatings=true, not kept by default).
+     */
+    public static final boolean KEEP_RATINGS = Boolean.getBoolean("videosdb.keepRatings");
+    /**
+     * If the filtered video queries go through primitive arrays
+     * (-Dvideosdb.columnarQueries=true, through the buckets by default).
+     */
+    public static final boolean COLUMNAR_QUERIES = Boolean.getBoolean("videosdb.columnarQueries");
+    /**
+     * The number of videos from which a filtered video query is scanned in
+     * parallel (-Dvideosdb.parallelQueryThreshold=N, 65536 by default): all
+     * the videos with columnar queries, the bucket of the filter otherwise.
+     * Unfiltered queries walk a sorted index and stop after "number" videos,
+     * so they are never split.
+     */
+    public static final int PARALLEL_QUERY_THRESHOLD = Integer.getInteger(
+            "videosdb.parallelQueryThreshold", 65536);
+    /**
+     * If the latency of every action is recorded and a report is written for
+     * every input file (-Dvideosdb.latencyStats=true, off by default).
+     */
+    public static final boolean LATENCY_STATS = Boolean.getBoolean("videosdb.latencyStats");
+    /**
+     * The directory of the latency reports (-Dvideosdb.latencyReportDir=DIR,
+     * "latency" by default). It must not be the result directory: the checker
+     * expects only results there.
+     */
+    public static final String LATENCY_REPORT_DIR = System.getProperty(
+            "videosdb.latencyReportDir", "latency");
+    public static final String LATENCY_REPORT_SUFFIX = ".latency.json";
 }
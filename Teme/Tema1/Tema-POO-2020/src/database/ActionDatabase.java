@@ -7,18 +7,40 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * An arraylist with all the actions.
+ * An arraylist with all the actions.<br>
+ * Every action is compiled once, when it is read: its user and its video are
+ * found in the databases and its strings are turned into an Operation, a
+ * sort direction and a QueryFilter.
  */
 public final class ActionDatabase {
     private final ArrayList<Action> actionsDatabase = new ArrayList<>();
+    private final UserDatabase userDatabase;
+    private final VideoDatabase videoDatabase;
+
+    public ActionDatabase(final UserDatabase userDatabase, final VideoDatabase videoDatabase) {
+        this.userDatabase = userDatabase;
+        this.videoDatabase = videoDatabase;
+    }
+
+    public ActionDatabase(final List<ActionInputData> actionData,
+                          final UserDatabase userDatabase, final VideoDatabase videoDatabase) {
+        this(userDatabase, videoDatabase);
 
-    public ActionDatabase(final List<ActionInputData> actionData) {
         for (ActionInputData actionEntry : actionData) {
-            Action newAction = new Action(actionEntry);
-            actionsDatabase.add(newAction);
+            actionsDatabase.add(compile(actionEntry));
         }
     }
 
+    /**
+     * @param actionData the action, as it is read
+     * @return the action, ready to be executed
+     */
+    public Action compile(final ActionInputData actionData) {
+        return new Action(actionData,
+                userDatabase.getUserDatabase().get(actionData.getUsername()),
+                videoDatabase.getVideoDatabase().get(actionData.getTitle()));
+    }
+
     public ArrayList<Action> getActionsDatabase() {
         return actionsDatabase;
     }
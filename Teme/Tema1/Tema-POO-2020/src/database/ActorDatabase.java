@@ -3,119 +3,293 @@ package database;
 import action.Action;
 import actor.Actor;
 import actor.ActorsAwards;
+import entertainment.Video;
 import fileio.ActorInputData;
 import utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
 
 import static common.Constants.AWARD_LIST;
 
 /**
  * An hashmap that contains all the actors.<br>
- * Maps the name of the actor to an "Actor"object.
+ * Maps the name of the actor to an "Actor"object.<br>
+ * The actors with a grade are also kept sorted by their grade. Every video
+ * is mapped to the actors that played in it, so when a video is rated only
+ * the grades of those actors are computed again.<br>
+ * The career descriptions are indexed once, by word, so the description
+ * query only intersects the lists of the words given as filters.<br>
+ * The actors are also kept sorted by their total awards, with one BitSet
+ * for every award, so the awards query is an AND of the BitSets.
  */
 public final class ActorDatabase {
     private final HashMap<String, Actor> actorDatabase = new HashMap<>();
+    private final VideoDatabase videoDatabase;
+    /**
+     * The actors that played in every video, indexed by the id of the video.
+     */
+    private final Actor[][] videoActors;
+    /**
+     * The actors with a grade > 0, sorted by their grade; if equal, sorted
+     * alphabetically.
+     */
+    private final TreeSet<Actor> gradeIndex = new TreeSet<>(Comparator
+            .comparingDouble(Actor::getAverageRating)
+            .thenComparing(Actor::getName));
+    /**
+     * All the actors, sorted alphabetically; the id of an actor is its
+     * position in this array.
+     */
+    private final Actor[] actorsByName;
+    /**
+     * Maps every word of the career descriptions to the ids of the actors
+     * that have it in their description, sorted in ascending order.
+     */
+    private final HashMap<String, int[]> descriptionIndex = new HashMap<>();
+    /**
+     * All the actors, sorted by the number of their awards; if equal, sorted
+     * alphabetically.
+     */
+    private final Actor[] actorsByAwards;
+    /**
+     * For every award, the positions in actorsByAwards of the actors that
+     * have won it.
+     */
+    private final EnumMap<ActorsAwards, BitSet> awardIndex = new EnumMap<>(ActorsAwards.class);
+
+    public ActorDatabase(final List<ActorInputData> actorData,
+                         final VideoDatabase videoDatabase) {
+        this.videoDatabase = videoDatabase;
 
-    public ActorDatabase(final List<ActorInputData> actorData) {
         for (ActorInputData actorEntry : actorData) {
-            Actor newActor = new Actor(actorEntry);
+            Actor newActor = new Actor(actorEntry, videoDatabase);
             actorDatabase.put(newActor.getName(), newActor);
         }
+
+        ArrayList<ArrayList<Actor>> actorsOfVideos = new ArrayList<>();
+        for (int id = 0; id < videoDatabase.size(); id++) {
+            actorsOfVideos.add(new ArrayList<>());
+        }
+
+        for (Actor actor : actorDatabase.values()) {
+            for (int id : actor.getFilmography()) {
+                actorsOfVideos.get(id).add(actor);
+            }
+
+            actor.computeActorGrade(videoDatabase);
+            if (actor.getAverageRating() > 0) {
+                gradeIndex.add(actor);
+            }
+        }
+
+        videoActors = new Actor[actorsOfVideos.size()][];
+        for (int id = 0; id < videoActors.length; id++) {
+            videoActors[id] = actorsOfVideos.get(id).toArray(new Actor[0]);
+        }
+
+        actorsByName = actorDatabase.values().toArray(new Actor[0]);
+        Arrays.sort(actorsByName, Comparator.comparing(Actor::getName));
+        buildDescriptionIndex();
+
+        actorsByAwards = actorDatabase.values().toArray(new Actor[0]);
+        Arrays.sort(actorsByAwards, Comparator.comparingInt(Actor::getTotalAwards)
+                .thenComparing(Actor::getName));
+        buildAwardIndex();
     }
 
     /**
-     * @param videoDatabase the video database
-     * @return an array of strings containing the names of all the actors sorted
-     * (in ascending order) by their average grade (and with grade > 0)
+     * Sets, in the BitSet of every award, the positions of the actors that
+     * have won it.
      */
-    public ArrayList<String> getAvgQuery(final VideoDatabase videoDatabase) {
-        ArrayList<String> actorsNames = new ArrayList<>();
-        ArrayList<Actor> actors = new ArrayList<>();
+    private void buildAwardIndex() {
+        for (ActorsAwards award : ActorsAwards.values()) {
+            awardIndex.put(award, new BitSet(actorsByAwards.length));
+        }
 
-        actorDatabase.values().forEach(actor -> actor.computeActorGrade(videoDatabase));
-        actorDatabase.values().forEach(actor -> {
-            if (actor.getAverageRating() > 0) {
-                actors.add(actor);
+        for (int position = 0; position < actorsByAwards.length; position++) {
+            for (ActorsAwards award : actorsByAwards[position].getAwardSet()) {
+                awardIndex.get(award).set(position);
             }
-        });
+        }
+    }
+
+    /**
+     * Splits the description of every actor in words, the same way as
+     * Utils.stringToArray, and adds the actor to the list of every word.
+     */
+    private void buildDescriptionIndex() {
+        HashMap<String, ArrayList<Integer>> postings = new HashMap<>();
+
+        for (int id = 0; id < actorsByName.length; id++) {
+            String description = actorsByName[id].getCareerDescription();
+
+            for (String word : new HashSet<>(Utils.stringToArray(description))) {
+                postings.computeIfAbsent(word, key -> new ArrayList<>()).add(id);
+            }
+        }
 
-        // sorting them by their grade; if equal -> sort them alphabetically
-        actors.sort((actor1, actor2) -> {
-            int compute = actor1.getAverageRating().compareTo(actor2.getAverageRating());
+        postings.forEach((word, ids) -> descriptionIndex.put(word,
+                ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
 
-            if (compute != 0) {
-                return compute;
-            } else {
-                return actor1.getName().compareTo(actor2.getName());
+    /**
+     * Computes again the grades of the actors that played in a video, after
+     * the average rating of the video has changed.
+     * @param video the video that was rated
+     */
+    public synchronized void updateGrades(final Video video) {
+        for (Actor actor : videoActors[video.getId()]) {
+            gradeIndex.remove(actor);
+            actor.computeActorGrade(videoDatabase);
+
+            if (actor.getAverageRating() > 0) {
+                gradeIndex.add(actor);
             }
-        });
+        }
+    }
 
-        actors.forEach(actor -> actorsNames.add(actor.getName()));
+    /**
+     * @param action the action that contains the sort type and the number of
+     *               results
+     * @return an array of strings containing the names of the actors sorted
+     * by their average grade (and with grade > 0), only the first "number"
+     * of them
+     */
+    public synchronized ArrayList<String> getAvgQuery(final Action action) {
+        ArrayList<String> actorsNames = new ArrayList<>();
+        Iterator<Actor> actors = action.isDescending()
+                ? gradeIndex.descendingIterator() : gradeIndex.iterator();
+
+        while (actors.hasNext() && !isFull(actorsNames, action)) {
+            actorsNames.add(actors.next().getName());
+        }
 
         return actorsNames;
     }
 
     /**
-     * @param action the action that contains the awards given as filters
-     * @return an array of string containing the names of all the actors that
-     * have won the awards given as filters, sorted (in ascending order) by
-     * their total awards
+     * @param action the action that contains the awards given as filters,
+     *               the sort type and the number of results
+     * @return an array of string containing the names of the actors that
+     * have won the awards given as filters, sorted by their total awards
+     * (only the first "number" of them)
      */
     public ArrayList<String> getAwardsQuery(final Action action) {
         ArrayList<String> actorsNames = new ArrayList<>();
-        ArrayList<Actor> actors = new ArrayList<>();
-        ArrayList<ActorsAwards> awards = new ArrayList<>();
+        BitSet actors = new BitSet(actorsByAwards.length);
+        actors.set(0, actorsByAwards.length);
 
-        action.getFilters().get(AWARD_LIST).forEach(string ->
-                awards.add(Utils.stringToAwards(string)));
+        // keeps only the actors that have won every award
+        for (String awardName : action.getFilters().get(AWARD_LIST)) {
+            ActorsAwards award = Utils.stringToAwards(awardName);
 
-        for (Actor actor : actorDatabase.values()) {
-            if (actor.getAwards().keySet().containsAll(awards)) {
-                actors.add(actor);
+            if (award == null) {
+                return actorsNames;
             }
+            actors.and(awardIndex.get(award));
         }
 
-        // sort them by the number of their awards; if equal -> sort them alphabetically
-        actors.sort((actor1, actor2) -> {
-            int compare = actor1.getTotalAwards() - actor2.getTotalAwards();
-
-            if (compare != 0) {
-                return compare;
-            } else {
-                return actor1.getName().compareTo(actor2.getName());
+        // the actors are already sorted by the number of their awards
+        if (action.isDescending()) {
+            for (int i = actors.previousSetBit(actorsByAwards.length - 1);
+                 i >= 0 && !isFull(actorsNames, action); i = actors.previousSetBit(i - 1)) {
+                actorsNames.add(actorsByAwards[i].getName());
             }
-        });
-
-        actors.forEach(actor -> actorsNames.add(actor.getName()));
+        } else {
+            for (int i = actors.nextSetBit(0);
+                 i >= 0 && !isFull(actorsNames, action); i = actors.nextSetBit(i + 1)) {
+                actorsNames.add(actorsByAwards[i].getName());
+            }
+        }
 
         return actorsNames;
     }
 
     /**
-     * @param action the action that contains the words given as filters
-     * @return an array of string containing the names of all the actors that
-     * have in their description all the words given as filters, sorted in
-     * alphabetically order.
+     * @param action the action that contains the words given as filters,
+     *               the sort type and the number of results
+     * @return an array of string containing the names of the actors that
+     * have in their description all the words given as filters, sorted
+     * alphabetically (only the first "number" of them)
      */
     public ArrayList<String> getDescriptionQuery(final Action action) {
+        ArrayList<int[]> postings = new ArrayList<>();
+
+        for (String word : new HashSet<>(action.getFilters().get(2))) {
+            int[] ids = descriptionIndex.get(word);
+
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            postings.add(ids);
+        }
+
         ArrayList<String> actors = new ArrayList<>();
-        ArrayList<String> filterWords = new ArrayList<>(action.getFilters().get(2));
 
-        for (Actor actor : actorDatabase.values()) {
+        int[] ids;
+        int size;
 
-            ArrayList<String> careerDescription;
-            careerDescription = Utils.stringToArray(actor.getCareerDescription());
+        if (postings.isEmpty()) {
+            // no words given as filters -> all the actors
+            ids = null;
+            size = actorsByName.length;
+        } else {
+            // intersects the shortest lists first
+            postings.sort(Comparator.comparingInt(posting -> posting.length));
 
-            if (careerDescription.containsAll(filterWords)) {
-                actors.add(actor.getName());
+            ids = postings.get(0).clone();
+            size = ids.length;
+            for (int i = 1; i < postings.size(); i++) {
+                size = intersect(ids, size, postings.get(i));
             }
         }
 
-        actors.sort(String::compareTo);
+        boolean descending = action.isDescending();
+        for (int i = 0; i < size && !isFull(actors, action); i++) {
+            int position = descending ? size - 1 - i : i;
+            actors.add(actorsByName[ids == null ? position : ids[position]].getName());
+        }
 
         return actors;
     }
+
+    /**
+     * @return true if the list has as many names as the action asks for
+     */
+    private static boolean isFull(final List<String> names, final Action action) {
+        return action.getNumber() != 0 && names.size() >= action.getNumber();
+    }
+
+    /**
+     * Keeps in the first list only the ids that are also in the second one.
+     * @param ids the first list (sorted), changed in place
+     * @param size the number of ids in the first list
+     * @param other the second list (sorted)
+     * @return the number of ids that are left in the first list
+     */
+    private static int intersect(final int[] ids, final int size, final int[] other) {
+        int kept = 0;
+        int j = 0;
+
+        for (int i = 0; i < size && j < other.length; i++) {
+            while (j < other.length && other[j] < ids[i]) {
+                j++;
+            }
+
+            if (j < other.length && other[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+
+        return kept;
+    }
 }
@@ -2,21 +2,85 @@ package database;
 
 import entertainment.Genre;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 
 /**
- * All the genres are mapped to the total number of views (0 views initially).
+ * All the genres are mapped to the total number of views (0 views initially).<br>
+ * The genres are also kept ranked from the most viewed to the least viewed
+ * (on a tie, the genre with the higher ordinal comes first). Views are only
+ * added, so when a genre is viewed it is moved up the ranking, one genre at a
+ * time.<br>
+ * The views and the ranking are changed under the same lock, so they can be
+ * used from multiple threads.
  */
 public final class GenreDatabase {
-    private final HashMap<Genre, Integer> genreDatabase = new HashMap<>();
+    private static final Genre[] GENRES = Genre.values();
+
+    /**
+     * The number of views of every genre, indexed by its ordinal.
+     */
+    private final long[] views = new long[GENRES.length];
+    /**
+     * The genres, from the most viewed to the least viewed.
+     */
+    private final Genre[] ranking = new Genre[GENRES.length];
+    /**
+     * The position in the ranking of every genre, indexed by its ordinal.
+     */
+    private final int[] positions = new int[GENRES.length];
 
     public GenreDatabase() {
-        for (Genre genre : Genre.values()) {
-            genreDatabase.put(genre, 0);
+        for (int position = 0; position < GENRES.length; position++) {
+            ranking[position] = GENRES[GENRES.length - 1 - position];
+            positions[ranking[position].ordinal()] = position;
+        }
+    }
+
+    /**
+     * Adds views to every genre of a video and updates the ranking.<br>
+     * Doesn't allocate anything, so it can be called for every view.
+     * @param genreOrdinals the ordinals of the genres that are viewed
+     * @param addedViews the number of views that are added to every genre
+     */
+    public synchronized void addViews(final int[] genreOrdinals, final int addedViews) {
+        for (int ordinal : genreOrdinals) {
+            addViews(ordinal, addedViews);
         }
     }
 
-    public HashMap<Genre, Integer> getGenreDatabase() {
-        return genreDatabase;
+    private void addViews(final int ordinal, final int addedViews) {
+        views[ordinal] += addedViews;
+
+        Genre genre = GENRES[ordinal];
+        int position = positions[ordinal];
+        while (position > 0 && isBefore(ordinal, ranking[position - 1].ordinal())) {
+            ranking[position] = ranking[position - 1];
+            positions[ranking[position].ordinal()] = position;
+            position--;
+        }
+
+        ranking[position] = genre;
+        positions[ordinal] = position;
+    }
+
+    /**
+     * @param genre the genre
+     * @return the total number of views of that genre
+     */
+    public synchronized long getViews(final Genre genre) {
+        return views[genre.ordinal()];
+    }
+
+    /**
+     * @return all the genres, from the most viewed to the least viewed
+     */
+    public synchronized List<Genre> getGenresByViews() {
+        return Arrays.asList(ranking.clone());
+    }
+
+    private boolean isBefore(final int ordinal, final int otherOrdinal) {
+        return views[ordinal] > views[otherOrdinal]
+                || (views[ordinal] == views[otherOrdinal] && ordinal > otherOrdinal);
     }
 }
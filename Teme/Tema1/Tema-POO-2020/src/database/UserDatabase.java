@@ -1,7 +1,9 @@
 package database;
 
+import action.Action;
 import fileio.UserInputData;
 import user.User;
+import utils.TopK;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,31 +25,37 @@ public final class UserDatabase {
     }
 
     /**
+     * @param action the action that contains the sort type and the number of
+     *               results
      * @return an array of all the users that have rated at least one video,
-     * sorted (in ascending order) by the numbers of ratings
+     * sorted by the numbers of ratings (only the first "number" of them)
      */
-    public ArrayList<String> getPopularUsers() {
+    public ArrayList<String> getPopularUsers(final Action action) {
         ArrayList<String> usernames = new ArrayList<>();
-        ArrayList<User> users = new ArrayList<>();
-
-        for (User user : userDatabase.values()) {
-            if (user.getNrOfRatings() > 0) {
-                users.add(user);
-            }
-        }
+        // the number of ratings is read only once, so it doesn't change while sorting
+        HashMap<User, Integer> nrOfRatings = new HashMap<>();
 
         // sort them by their number of ratings; if equal -> sort alphabetically
-        users.sort((user1, user2) -> {
-            int compare = user1.getNrOfRatings() - user2.getNrOfRatings();
+        TopK<User> users = new TopK<>((user1, user2) -> {
+            int compare = nrOfRatings.get(user1) - nrOfRatings.get(user2);
 
             if (compare != 0) {
                 return compare;
             } else {
                 return user1.getUsername().compareTo(user2.getUsername());
             }
-        });
+        }, action.isDescending(), action.getNumber());
+
+        for (User user : userDatabase.values()) {
+            int userRatings = user.getNrOfRatings();
+
+            if (userRatings > 0) {
+                nrOfRatings.put(user, userRatings);
+                users.add(user);
+            }
+        }
 
-        for (User user : users) {
+        for (User user : users.toList()) {
             usernames.add(user.getUsername());
         }
 
@@ -0,0 +1,219 @@
+package database;
+
+import action.Action;
+import action.QueryFilter;
+import entertainment.Video;
+import utils.TopK;
+
+import static common.Constants.PARALLEL_QUERY_THRESHOLD;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The data of all the videos that the queries use, kept in one primitive
+ * array for every field (indexed by the id of the video), so a filtered query
+ * goes through arrays instead of going from a video object to another.<br>
+ * The views, favorites and ratings are updated by the VideoDatabase together
+ * with its indexes (under the same locks); the other fields never change.<br>
+ * The years are kept as shorts.<br>
+ * Above a number of videos, a query is split across the common ForkJoinPool.
+ */
+final class VideoColumns {
+    static final byte MOVIE = 1;
+    static final byte SHOW = 2;
+    /**
+     * A parallel scan is split in (about) this many tasks for every thread.
+     */
+    static final int LEAVES_PER_THREAD = 4;
+
+    /**
+     * The criteria of the queries.
+     */
+    enum Criterion {
+        VIEWS, FAVORITES, RATING, DURATION
+    }
+
+    private final Video[] videos;
+    private final int[] views;
+    private final int[] favs;
+    private final double[] averages;
+    private final int[] durations;
+    private final short[] years;
+    private final byte[] types;
+    /**
+     * The genres of every video, one bit for every Genre (by its ordinal).
+     * @see Video#getGenreMask
+     */
+    private final int[] genreMasks;
+
+    VideoColumns(final List<Video> videosById) {
+        int size = videosById.size();
+        videos = videosById.toArray(new Video[0]);
+        views = new int[size];
+        favs = new int[size];
+        averages = new double[size];
+        durations = new int[size];
+        years = new short[size];
+        types = new byte[size];
+        genreMasks = new int[size];
+
+        for (int id = 0; id < size; id++) {
+            Video video = videos[id];
+            views[id] = video.getViews();
+            favs[id] = video.getNrOfFav();
+            averages[id] = video.getAvgRating();
+            durations[id] = video.getDuration();
+            years[id] = (short) video.getYear();
+            types[id] = video.isShow() ? SHOW : MOVIE;
+
+            genreMasks[id] = video.getGenreMask();
+        }
+    }
+
+    void setViews(final Video video) {
+        views[video.getId()] = video.getViews();
+    }
+
+    void setFavs(final Video video) {
+        favs[video.getId()] = video.getNrOfFav();
+    }
+
+    void setAverage(final Video video) {
+        averages[video.getId()] = video.getAvgRating();
+    }
+
+    /**
+     * Goes through all the videos of a type, keeps the ones that have a value
+     * for the criterion and respect the filters, and selects the first ones
+     * in the order asked by the action.<br>
+     * Must be called while holding the lock of the index of the criterion.
+     * @param criterion the criterion of the query
+     * @param type MOVIE or SHOW
+     * @param action the action that contains the filters, the sort type and
+     *               the number of results
+     * @return the titles of the videos, already sorted and trimmed
+     */
+    ArrayList<String> query(final Criterion criterion, final byte type, final Action action) {
+        ArrayList<String> videosTitle = new ArrayList<>();
+        QueryFilter filter = action.getQueryFilter();
+
+        // sorted by the criterion; if equal -> sorted alphabetically
+        Comparator<Video> comparator = (video1, video2) -> {
+            int compare = Double.compare(value(criterion, video1.getId()),
+                    value(criterion, video2.getId()));
+
+            if (compare != 0) {
+                return compare;
+            } else {
+                return video1.getTitle().compareTo(video2.getTitle());
+            }
+        };
+        TopK<Video> selected;
+
+        if (videos.length < PARALLEL_QUERY_THRESHOLD) {
+            selected = new TopK<>(comparator, action.isDescending(), action.getNumber());
+            scan(criterion, type, filter, 0, videos.length, selected);
+        } else {
+            // the tasks see the columns as they are, because the lock of the
+            // criterion is held until they are done
+            int leafSize = Math.max(1, videos.length
+                    / (LEAVES_PER_THREAD * ForkJoinPool.getCommonPoolParallelism()));
+            selected = ForkJoinPool.commonPool().invoke(new ScanTask(criterion, type, filter,
+                    comparator, action, 0, videos.length, leafSize));
+        }
+
+        selected.toList().forEach(video -> videosTitle.add(video.getTitle()));
+
+        return videosTitle;
+    }
+
+    /**
+     * Adds to "selected" the videos (with ids from "from" to "to") of a type
+     * that have a value for the criterion and respect the filter.
+     */
+    private void scan(final Criterion criterion, final byte type, final QueryFilter filter,
+                      final int from, final int to, final TopK<Video> selected) {
+        for (int id = from; id < to; id++) {
+            if (types[id] == type && hasValue(criterion, id)
+                    && filter.matchesYear(years[id])
+                    && filter.matchesGenres(genreMasks[id], videos[id])) {
+                selected.add(videos[id]);
+            }
+        }
+    }
+
+    /**
+     * Scans a range of ids: splits it in two halves until it is small enough,
+     * then keeps the best videos of every half and merges them. The comparator
+     * orders every video (ties are broken by title), so the result doesn't
+     * depend on how the range was split.
+     */
+    private final class ScanTask extends RecursiveTask<TopK<Video>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Criterion criterion;
+        private final byte type;
+        private final QueryFilter filter;
+        private final Comparator<Video> comparator;
+        private final Action action;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private ScanTask(final Criterion criterion, final byte type, final QueryFilter filter,
+                         final Comparator<Video> comparator, final Action action,
+                         final int from, final int to, final int leafSize) {
+            this.criterion = criterion;
+            this.type = type;
+            this.filter = filter;
+            this.comparator = comparator;
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected TopK<Video> compute() {
+            if (to - from <= leafSize) {
+                TopK<Video> selected = new TopK<>(comparator, action.isDescending(),
+                        action.getNumber());
+                scan(criterion, type, filter, from, to, selected);
+                return selected;
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(criterion, type, filter, comparator, action,
+                    from, middle, leafSize);
+            ScanTask right = new ScanTask(criterion, type, filter, comparator, action,
+                    middle, to, leafSize);
+            left.fork();
+
+            TopK<Video> selected = right.compute();
+            selected.addAll(left.join());
+            return selected;
+        }
+    }
+
+    private double value(final Criterion criterion, final int id) {
+        return switch (criterion) {
+            case VIEWS -> views[id];
+            case FAVORITES -> favs[id];
+            case RATING -> averages[id];
+            case DURATION -> durations[id];
+        };
+    }
+
+    private boolean hasValue(final Criterion criterion, final int id) {
+        return switch (criterion) {
+            case VIEWS -> views[id] > 0;
+            case FAVORITES -> favs[id] > 0;
+            case RATING -> averages[id] > 0;
+            case DURATION -> true;
+        };
+    }
+}
@@ -1,186 +1,366 @@
 package database;
 
 import action.Action;
+import entertainment.Genre;
 import entertainment.Movie;
 import entertainment.Show;
 import entertainment.Video;
 import fileio.MovieInputData;
 import fileio.SerialInputData;
+import utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
-import static common.Constants.MOVIES;
+import static common.Constants.COLUMNAR_QUERIES;
 
 /**
  * Contains all the videos.<br>
  * Videos are stored in the order they are given.<br>
- * Maps the title of the video to a "Video" object.
+ * Maps the title of the video to a "Video" object.<br>
+ * Movies and shows are also kept in separate partitions that have an index
+ * for every query criterion, updated every time a video is viewed, favored
+ * or rated.<br>
+ * Every index is guarded by its own lock, so videos can be updated and
+ * queried from multiple threads.<br>
+ * With -Dvideosdb.columnarQueries=true the filtered queries go through
+ * VideoColumns (primitive arrays) instead of the buckets of the partitions.
  */
 public final class VideoDatabase {
     private final LinkedHashMap<String, Video> videoDatabase = new LinkedHashMap<>();
+    /**
+     * The videos, indexed by their id (the order they are given).
+     */
+    private final ArrayList<Video> videosById = new ArrayList<>();
+    /**
+     * The first rating slot of every video, indexed by its id.<br>
+     * A movie has one slot and a show has one slot for every season, so a
+     * user can remember what it has rated in a single BitSet.
+     */
+    private int[] firstRatingSlots = new int[0];
+    private int ratingSlots = 0;
+    /**
+     * All the videos, sorted by their average rating (descending); if equal,
+     * in the order they are given.
+     */
+    private final TreeSet<Video> bestRatedIndex = new TreeSet<>(Comparator
+            .comparingDouble(Video::getAvgRating).reversed()
+            .thenComparingInt(Video::getId));
+    /**
+     * All the movies, grouped and sorted for the queries.
+     */
+    private final VideoPartition movies = new VideoPartition();
+    /**
+     * All the shows, grouped and sorted for the queries.
+     */
+    private final VideoPartition shows = new VideoPartition();
+    /**
+     * The videos of every genre, in the order they are given.
+     */
+    private final EnumMap<Genre, ArrayList<Video>> genreVideos = new EnumMap<>(Genre.class);
+    /**
+     * The videos as primitive arrays, used by the filtered queries (null if
+     * the columnar queries are off).
+     */
+    private final VideoColumns columns;
 
     public VideoDatabase(final List<MovieInputData> movieData,
                          final List<SerialInputData> serialData) {
         for (MovieInputData movieEntry : movieData) {
-            Movie newMovie = new Movie(movieEntry);
-            videoDatabase.put(newMovie.getTitle(), newMovie);
+            Movie newMovie = new Movie(movieEntry, nextId(movieEntry.getTitle()));
+            putVideo(newMovie);
         }
 
         for (SerialInputData serialEntry : serialData) {
-            Show newShow = new Show(serialEntry);
-            videoDatabase.put(newShow.getTitle(), newShow);
+            Show newShow = new Show(serialEntry, nextId(serialEntry.getTitle()));
+            putVideo(newShow);
+        }
+
+        // the partitions are filled only after every video is read, so a
+        // video replaced by a later one with the same title isn't in them
+        for (Video video : videosById) {
+            getPartition(video).add(video);
+        }
+
+        for (Genre genre : Genre.values()) {
+            String genreName = Utils.genreToString(genre);
+            ArrayList<Video> videos = new ArrayList<>();
+
+            for (Video video : videoDatabase.values()) {
+                if (video.getGenres().contains(genreName)) {
+                    videos.add(video);
+                }
+            }
+
+            genreVideos.put(genre, videos);
         }
+
+        columns = COLUMNAR_QUERIES ? new VideoColumns(videosById) : null;
     }
 
     /**
-     * @param action the action that contains the filters and tells the query
-     *               if it's for movies or shows
-     * @return an array string containing the titles of all the rated
-     * movies/shows sorted (in ascending order) by their average rating
+     * @param title the title of the video
+     * @return the id of the video with that title (a new one if there is no
+     * such video yet)
      */
-    public ArrayList<String> getRatedVideos(final Action action) {
-        ArrayList<String> videosTitle = new ArrayList<>();
-        ArrayList<Video> ratedVideos = new ArrayList<>();
+    private int nextId(final String title) {
+        Video oldVideo = videoDatabase.get(title);
+        return oldVideo == null ? videosById.size() : oldVideo.getId();
+    }
 
-        for (Video video : videoDatabase.values()) {
-            if (video.getAvgRating() > 0 && video.isFiltered(action)) {
-                ratedVideos.add(video);
-            }
+    /**
+     * Adds a video (or replaces the video with the same title, keeping its
+     * position, like a LinkedHashMap does).
+     */
+    private void putVideo(final Video video) {
+        Video oldVideo = videoDatabase.put(video.getTitle(), video);
+
+        if (oldVideo == null) {
+            videosById.add(video);
+        } else {
+            videosById.set(video.getId(), video);
+            bestRatedIndex.remove(oldVideo);
         }
+        bestRatedIndex.add(video);
 
-        // sort them by their garde; if equal -> sort alphabetically
-        ratedVideos.sort((video1, video2) -> {
-            int compare = video1.getAvgRating().compareTo(video2.getAvgRating());
+        if (video.getId() >= firstRatingSlots.length) {
+            firstRatingSlots = Arrays.copyOf(firstRatingSlots, 2 * video.getId() + 1);
+        }
+        firstRatingSlots[video.getId()] = ratingSlots;
+        ratingSlots += video.isShow() ? ((Show) video).getSeasons().size() : 1;
+    }
 
-            if (compare != 0) {
-                return compare;
-            } else {
-                return video1.getTitle().compareTo(video2.getTitle());
-            }
-        });
+    /**
+     * @param video the video
+     * @param season the number of the season (starting from 1), if the video
+     *               is a show
+     * @return the rating slot of the movie / of the season of the show, or -1
+     * if the show has no such season
+     */
+    public int getRatingSlot(final Video video, final int season) {
+        if (!video.isShow()) {
+            return firstRatingSlots[video.getId()];
+        }
 
-        removeUnnecessary(ratedVideos, action);
-        videoToString(ratedVideos, videosTitle);
+        if (season < 1 || season > ((Show) video).getSeasons().size()) {
+            return -1;
+        }
 
-        return videosTitle;
+        return firstRatingSlots[video.getId()] + season - 1;
     }
 
     /**
-     * @param action the action that contains the filters and tells the query
-     *               if it's for movies or shows
-     * @return an array string containing the titles of all the movies/shows
-     * that have been added to favorite list at least once, sorted
-     * (in ascending order) by their number of times it has been added to
-     * favorite list
+     * @return the number of videos (the ids are 0, 1, ..., size - 1)
      */
-    public ArrayList<String> getFavVideos(final Action action) {
-        ArrayList<String> videosTitle = new ArrayList<>();
-        ArrayList<Video> favVideos = new ArrayList<>();
+    public int size() {
+        return videosById.size();
+    }
+
+    /**
+     * @param id the id of the video
+     * @return the video with that id
+     */
+    public Video getVideo(final int id) {
+        return videosById.get(id);
+    }
 
-        for (Video video : videoDatabase.values()) {
-            if (video.getNrOfFav() > 0 && video.isFiltered(action)) {
-                favVideos.add(video);
+    /**
+     * Walks the videos from the best rated to the worst rated (the first
+     * given if equal) until it finds one that respects a condition.
+     * @param condition the condition
+     * @return the first video that respects the condition or null
+     */
+    public Video findBestRated(final Predicate<Video> condition) {
+        synchronized (bestRatedIndex) {
+            for (Video video : bestRatedIndex) {
+                if (condition.test(video)) {
+                    return video;
+                }
             }
         }
 
-        favVideos.sort((video1, video2) -> {
-            int compare = video1.getNrOfFav() - video2.getNrOfFav();
+        return null;
+    }
 
-            if (compare != 0) {
-                return compare;
-            } else {
-                return video1.getTitle().compareTo(video2.getTitle());
-            }
-        });
+    /**
+     * @param genre the genre
+     * @return the videos of that genre, in the order they are given
+     * (must not be modified)
+     */
+    public List<Video> getVideosByGenre(final Genre genre) {
+        return genreVideos.get(genre);
+    }
 
-        removeUnnecessary(favVideos, action);
-        videoToString(favVideos, videosTitle);
+    /**
+     * @param action the action that contains the filters, the sort type, the
+     *               number of results and tells the query if it's for movies or shows
+     * @return an array string containing the titles of all the rated
+     * movies/shows sorted by their average rating
+     */
+    public ArrayList<String> getRatedVideos(final Action action) {
+        VideoPartition partition = getPartition(action);
+        return query(partition, partition.getRatingIndex(), video -> video.getAvgRating() > 0,
+                VideoColumns.Criterion.RATING, action);
+    }
 
-        return videosTitle;
+    /**
+     * @param action the action that contains the filters, the sort type, the
+     *               number of results and tells the query if it's for movies or shows
+     * @return an array string containing the titles of all the movies/shows
+     * that have been added to favorite list at least once, sorted by their
+     * number of times it has been added to favorite list
+     */
+    public ArrayList<String> getFavVideos(final Action action) {
+        VideoPartition partition = getPartition(action);
+        return query(partition, partition.getFavIndex(), video -> video.getNrOfFav() > 0,
+                VideoColumns.Criterion.FAVORITES, action);
     }
 
     /**
-     * @param action the action that contains the filters and tells the query
-     *               if it's for movies or shows
+     * @param action the action that contains the filters, the sort type, the
+     *               number of results and tells the query if it's for movies or shows
      * @return an array string containing the titles of all the movies/shows
-     * sorted (in ascending order) by their duration
+     * sorted by their duration
      */
     public ArrayList<String> getLongVideos(final Action action) {
-        ArrayList<String> videosTitle = new ArrayList<>();
-        ArrayList<Video> longVideos = new ArrayList<>();
+        VideoPartition partition = getPartition(action);
+        return query(partition, partition.getDurationIndex(), video -> true,
+                VideoColumns.Criterion.DURATION, action);
+    }
 
-        for (Video video : videoDatabase.values()) {
-            if (video.isFiltered(action)) {
-                longVideos.add(video);
-            }
+    /**
+     * @param action the action that contains the filters, the sort type, the
+     *               number of results and tells the query if it's for movies or shows
+     * @return an array string containing the titles of all the movies/shows
+     * that have been viewed at least once, sorted by their views
+     */
+    public ArrayList<String> getMostViewedVideos(final Action action) {
+        VideoPartition partition = getPartition(action);
+        return query(partition, partition.getViewsIndex(), video -> video.getViews() > 0,
+                VideoColumns.Criterion.VIEWS, action);
+    }
+
+    /**
+     * Runs a query on the columns, if they are on and the action has filters,
+     * or on the partition otherwise.
+     */
+    private ArrayList<String> query(final VideoPartition partition, final TreeSet<Video> index,
+                                    final Predicate<Video> hasValue,
+                                    final VideoColumns.Criterion criterion,
+                                    final Action action) {
+        if (columns == null || action.getQueryFilter().isEmpty()) {
+            return partition.query(index, hasValue, action);
         }
 
-        // sort them by their duration; if equal -> sort alphabetically
-        longVideos.sort((video1, video2) -> {
-            int compare = video1.getDuration() - video2.getDuration();
+        byte type = action.isForMovies() ? VideoColumns.MOVIE : VideoColumns.SHOW;
 
-            if (compare != 0) {
-                return compare;
-            } else {
-                return video1.getTitle().compareTo(video2.getTitle());
-            }
-        });
+        // the column of the criterion is changed only while holding this lock
+        synchronized (index) {
+            return columns.query(criterion, type, action);
+        }
+    }
 
-        removeUnnecessary(longVideos, action);
-        videoToString(longVideos, videosTitle);
+    /**
+     * verifies if the query is for movies or for shows
+     */
+    private VideoPartition getPartition(final Action action) {
+        if (action.isForMovies()) {
+            return movies;
+        } else {
+            return shows;
+        }
+    }
 
-        return videosTitle;
+    private VideoPartition getPartition(final Video video) {
+        if (video.isShow()) {
+            return shows;
+        } else {
+            return movies;
+        }
     }
 
     /**
-     * @param action the action that contains the filters and tells the query
-     *               if it's for movies or shows
-     * @return an array string containing the titles of all the movies/shows
-     * that have been viewed at least once, sorted (in ascending order) by their views
+     * Increments the views of a video and keeps the views index ordered.
+     * @param video the video that is viewed
      */
-    public ArrayList<String> getMostViewedVideos(final Action action) {
-        ArrayList<String> videosTitle = new ArrayList<>();
-        ArrayList<Video> mostViewedVideos = new ArrayList<>();
+    public void incViews(final Video video) {
+        TreeSet<Video> viewsIndex = getPartition(video).getViewsIndex();
+
+        synchronized (viewsIndex) {
+            viewsIndex.remove(video);
+            video.incViews();
+            viewsIndex.add(video);
 
-        for (Video video : videoDatabase.values()) {
-            if (video.getViews() > 0 && video.isFiltered(action)) {
-                mostViewedVideos.add(video);
+            if (columns != null) {
+                columns.setViews(video);
             }
         }
+    }
 
-        // sort them by their views; if equal -> sort alphabetically
-        mostViewedVideos.sort((video1, video2) -> {
-            int compare = video1.getViews() - video2.getViews();
-
-            if (compare != 0) {
-                return compare;
-            } else {
-                return video1.getTitle().compareTo(video2.getTitle());
-            }
-        });
+    /**
+     * Adds views to a video and keeps the views index ordered.
+     * @param video the video that is viewed
+     * @param views the number of views that are added
+     */
+    public void addViews(final Video video, final int views) {
+        TreeSet<Video> viewsIndex = getPartition(video).getViewsIndex();
 
-        removeUnnecessary(mostViewedVideos, action);
-        videoToString(mostViewedVideos, videosTitle);
+        synchronized (viewsIndex) {
+            viewsIndex.remove(video);
+            video.addViews(views);
+            viewsIndex.add(video);
 
-        return videosTitle;
+            if (columns != null) {
+                columns.setViews(video);
+            }
+        }
     }
 
     /**
-     * verifies if the query is for movies or for shows
+     * Increments the number of times a video was added to a favorite list
+     * and keeps the favorite index ordered.
+     * @param video the video that is favored
      */
-    private void removeUnnecessary(final ArrayList<Video> videos, final Action action) {
-        if (action.getObjectType().equals(MOVIES)) {
-            videos.removeIf(Video::isShow);
-        } else {
-            videos.removeIf(video -> !video.isShow());
+    public void incNrOfFav(final Video video) {
+        TreeSet<Video> favIndex = getPartition(video).getFavIndex();
+
+        synchronized (favIndex) {
+            favIndex.remove(video);
+            video.incNrOfFav();
+            favIndex.add(video);
+
+            if (columns != null) {
+                columns.setFavs(video);
+            }
         }
     }
 
-    private void videoToString(final ArrayList<Video> videos, final ArrayList<String> videosTitle) {
-        for (Video video : videos) {
-            videosTitle.add(video.getTitle());
+    /**
+     * Computes the new average rating of a video (after a grade was added)
+     * and keeps the rating index ordered.
+     * @param video the video that is rated
+     */
+    public void updateAverageRating(final Video video) {
+        TreeSet<Video> ratingIndex = getPartition(video).getRatingIndex();
+
+        synchronized (bestRatedIndex) {
+            synchronized (ratingIndex) {
+                ratingIndex.remove(video);
+                bestRatedIndex.remove(video);
+                video.calculateAverageRating();
+                ratingIndex.add(video);
+                bestRatedIndex.add(video);
+
+                if (columns != null) {
+                    columns.setAverage(video);
+                }
+            }
         }
     }
 
@@ -0,0 +1,263 @@
+package database;
+
+import action.Action;
+import entertainment.Video;
+import utils.TopK;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import static common.Constants.PARALLEL_QUERY_THRESHOLD;
+
+/**
+ * Contains the videos of a single type (only movies or only shows).<br>
+ * For every query criterion keeps an index of the videos sorted by that
+ * criterion.<br>
+ * Videos are also grouped by their year and by their genres, so a filtered
+ * query only goes through the videos that can respect the filters.<br>
+ * A bucket with at least PARALLEL_QUERY_THRESHOLD videos is scanned in
+ * parallel, on the common ForkJoinPool.
+ */
+final class VideoPartition {
+    /**
+     * Videos sorted by their views; if equal -> sorted alphabetically.
+     */
+    private final TreeSet<Video> viewsIndex = new TreeSet<>(
+            Comparator.comparingInt(Video::getViews).thenComparing(Video::getTitle));
+    /**
+     * Videos sorted by their number of times they were favored; if equal ->
+     * sorted alphabetically.
+     */
+    private final TreeSet<Video> favIndex = new TreeSet<>(
+            Comparator.comparingInt(Video::getNrOfFav).thenComparing(Video::getTitle));
+    /**
+     * Videos sorted by their average rating; if equal -> sorted alphabetically.
+     */
+    private final TreeSet<Video> ratingIndex = new TreeSet<>(
+            Comparator.comparingDouble(Video::getAvgRating).thenComparing(Video::getTitle));
+    /**
+     * Videos sorted by their duration; if equal -> sorted alphabetically.
+     */
+    private final TreeSet<Video> durationIndex = new TreeSet<>(
+            Comparator.comparingInt(Video::getDuration).thenComparing(Video::getTitle));
+    /**
+     * Maps the year (as it is given in the filters) to the videos from that year.
+     */
+    private final HashMap<String, ArrayList<Video>> yearBuckets = new HashMap<>();
+    /**
+     * Maps the name of a genre to the videos that have that genre.
+     */
+    private final HashMap<String, ArrayList<Video>> genreBuckets = new HashMap<>();
+
+    /**
+     * Adds a video in every index and in its buckets.
+     * @param video the video that is added
+     */
+    void add(final Video video) {
+        viewsIndex.add(video);
+        favIndex.add(video);
+        ratingIndex.add(video);
+        durationIndex.add(video);
+
+        yearBuckets.computeIfAbsent(Integer.toString(video.getYear()),
+                year -> new ArrayList<>()).add(video);
+        video.getGenres().forEach(genre ->
+                genreBuckets.computeIfAbsent(genre, name -> new ArrayList<>()).add(video));
+    }
+
+    /**
+     * Finds the titles of the videos that have a value for the criterion of
+     * the index and respect the filters of the action.<br>
+     * If the action has no filters the index is walked in the order asked by
+     * the action, otherwise only the smallest bucket that matches the filters
+     * is sorted.<br>
+     * The index is locked during the query.
+     * @param index the index of the criterion
+     * @param hasValue tells if a video has a value for the criterion
+     * @param action the action that contains the filters, the sort type and
+     *               the number of results
+     * @return the titles of the videos, already sorted and trimmed
+     */
+    ArrayList<String> query(final TreeSet<Video> index, final Predicate<Video> hasValue,
+                            final Action action) {
+        // the values of the criterion don't change while the index is locked
+        synchronized (index) {
+            return queryLocked(index, hasValue, action);
+        }
+    }
+
+    private ArrayList<String> queryLocked(final TreeSet<Video> index,
+                                          final Predicate<Video> hasValue,
+                                          final Action action) {
+        List<Video> bucket = smallestBucket(action);
+
+        if (bucket == null) {
+            return walkIndex(index, hasValue, action);
+        }
+
+        TopK<Video> videos;
+
+        if (bucket.size() < PARALLEL_QUERY_THRESHOLD) {
+            videos = new TopK<>(index.comparator(), action.isDescending(), action.getNumber());
+            scan(bucket, hasValue, action, videos);
+        } else {
+            // the tasks see the values of the criterion as they are, because
+            // the index is locked until they are done
+            int leafSize = Math.max(1, bucket.size()
+                    / (VideoColumns.LEAVES_PER_THREAD * ForkJoinPool.getCommonPoolParallelism()));
+            videos = ForkJoinPool.commonPool().invoke(new ScanTask(index.comparator(), bucket,
+                    hasValue, action, leafSize));
+        }
+
+        ArrayList<String> videosTitle = new ArrayList<>();
+        videos.toList().forEach(video -> videosTitle.add(video.getTitle()));
+
+        return videosTitle;
+    }
+
+    /**
+     * Adds to "selected" the videos of a bucket that have a value for the
+     * criterion and respect the filters.
+     */
+    private static void scan(final List<Video> bucket, final Predicate<Video> hasValue,
+                             final Action action, final TopK<Video> selected) {
+        for (Video video : bucket) {
+            if (hasValue.test(video) && video.isFiltered(action)) {
+                selected.add(video);
+            }
+        }
+    }
+
+    /**
+     * Scans a part of a bucket: splits it in two halves until it is small
+     * enough, then keeps the best videos of every half and merges them. The
+     * comparator of an index orders every video (ties are broken by title),
+     * so the result doesn't depend on how the bucket was split.
+     */
+    private static final class ScanTask extends RecursiveTask<TopK<Video>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Comparator<? super Video> comparator;
+        private final List<Video> videos;
+        private final Predicate<Video> hasValue;
+        private final Action action;
+        private final int leafSize;
+
+        private ScanTask(final Comparator<? super Video> comparator, final List<Video> videos,
+                         final Predicate<Video> hasValue, final Action action,
+                         final int leafSize) {
+            this.comparator = comparator;
+            this.videos = videos;
+            this.hasValue = hasValue;
+            this.action = action;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected TopK<Video> compute() {
+            if (videos.size() <= leafSize) {
+                TopK<Video> selected = new TopK<>(comparator, action.isDescending(),
+                        action.getNumber());
+                scan(videos, hasValue, action, selected);
+                return selected;
+            }
+
+            int middle = videos.size() >>> 1;
+            ScanTask left = new ScanTask(comparator, videos.subList(0, middle), hasValue,
+                    action, leafSize);
+            ScanTask right = new ScanTask(comparator, videos.subList(middle, videos.size()),
+                    hasValue, action, leafSize);
+            left.fork();
+
+            TopK<Video> selected = right.compute();
+            selected.addAll(left.join());
+            return selected;
+        }
+    }
+
+    /**
+     * @param action the action that contains the filters
+     * @return the smallest bucket of videos that can respect the filters or
+     * null if the action has no filters
+     */
+    private List<Video> smallestBucket(final Action action) {
+        String year = action.getFilters().get(0).get(0);
+        List<String> genresList = action.getFilters().get(1);
+        List<Video> bucket = null;
+
+        if (year != null) {
+            bucket = yearBuckets.getOrDefault(year, new ArrayList<>());
+        }
+
+        if (genresList.size() == 1 && genresList.get(0) != null) {
+            List<Video> genreBucket = genreBuckets.getOrDefault(genresList.get(0),
+                    new ArrayList<>());
+
+            if (bucket == null || genreBucket.size() < bucket.size()) {
+                bucket = genreBucket;
+            }
+        }
+
+        return bucket;
+    }
+
+    /**
+     * Walks an index in the order asked by the action and collects the titles
+     * of the videos that respect the filters, until enough titles are found.<br>
+     * Videos with no value for the criterion are at the start of the index, so
+     * a descending walk stops at the first one.
+     * @param index the index of the criterion
+     * @param hasValue tells if a video has a value for the criterion
+     * @param action the action that contains the filters, the sort type and
+     *               the number of results
+     * @return the titles of the videos, already sorted and trimmed
+     */
+    private ArrayList<String> walkIndex(final TreeSet<Video> index,
+                                        final Predicate<Video> hasValue,
+                                        final Action action) {
+        ArrayList<String> videosTitle = new ArrayList<>();
+        boolean descending = action.isDescending();
+        Iterator<Video> iterator = descending ? index.descendingIterator() : index.iterator();
+
+        while (iterator.hasNext()
+                && (action.getNumber() == 0 || videosTitle.size() < action.getNumber())) {
+            Video video = iterator.next();
+
+            if (!hasValue.test(video)) {
+                if (descending) {
+                    break;
+                }
+                continue;
+            }
+
+            if (video.isFiltered(action)) {
+                videosTitle.add(video.getTitle());
+            }
+        }
+
+        return videosTitle;
+    }
+
+    TreeSet<Video> getViewsIndex() {
+        return viewsIndex;
+    }
+
+    TreeSet<Video> getFavIndex() {
+        return favIndex;
+    }
+
+    TreeSet<Video> getRatingIndex() {
+        return ratingIndex;
+    }
+
+    TreeSet<Video> getDurationIndex() {
+        return durationIndex;
+    }
+}
@@ -3,16 +3,16 @@ package entertainment;
 import fileio.MovieInputData;
 import fileio.ShowInput;
 
-import java.util.ArrayList;
+import static common.Constants.KEEP_RATINGS;
 
 /**
  * Contains information about a movie.
  */
 public final class Movie extends Video {
-    private final ArrayList<Double> ratings = new ArrayList<>();
+    private final RatingAggregate ratings = new RatingAggregate(KEEP_RATINGS);
 
-    public Movie(final ShowInput showInput) {
-        super(showInput);
+    public Movie(final ShowInput showInput, final int id) {
+        super(showInput, id);
         this.duration = ((MovieInputData) showInput).getDuration();
     }
 
@@ -21,17 +21,7 @@ public final class Movie extends Video {
      */
     @Override
     public void calculateAverageRating() {
-        Double sum = 0d;
-
-        for (Double rating : ratings) {
-            sum += rating;
-        }
-
-        if (ratings.isEmpty()) {
-            this.avgRating = 0d;
-        } else {
-            this.avgRating = sum / ratings.size();
-        }
+        this.avgRating = ratings.getAverage();
     }
 
     @Override
@@ -39,7 +29,15 @@ public final class Movie extends Video {
         return false;
     }
 
-    public ArrayList<Double> getRatings() {
+    /**
+     * Adds a rating (the average rating is computed separately).
+     * @param rating the rating that is added
+     */
+    public void addRating(final double rating) {
+        ratings.add(rating);
+    }
+
+    public RatingAggregate getRatings() {
         return ratings;
     }
 }
@@ -0,0 +1,66 @@
+package entertainment;
+
+import java.util.Arrays;
+
+/**
+ * The ratings of a movie or of a season, kept as their sum and their count,
+ * so a new rating is added in O(1).<br>
+ * The ratings themselves are kept (in a double[]) only if they are needed.
+ */
+public final class RatingAggregate {
+    private static final int INITIAL_LOG_SIZE = 4;
+
+    private double sum = 0d;
+    private int count = 0;
+    /**
+     * All the ratings, in the order they were given (null if they aren't kept).
+     */
+    private double[] log;
+
+    /**
+     * @param keepRatings true if every rating is kept, false if only the sum
+     *                    and the count are
+     */
+    public RatingAggregate(final boolean keepRatings) {
+        this.log = keepRatings ? new double[INITIAL_LOG_SIZE] : null;
+    }
+
+    /**
+     * Adds a rating.
+     * @param rating the rating that is added
+     */
+    public void add(final double rating) {
+        if (log != null) {
+            if (count == log.length) {
+                log = Arrays.copyOf(log, 2 * count);
+            }
+            log[count] = rating;
+        }
+
+        sum += rating;
+        count++;
+    }
+
+    /**
+     * @return the average of the ratings, 0 if there are no ratings
+     */
+    public double getAverage() {
+        return count == 0 ? 0d : sum / count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return a copy of all the ratings, in the order they were given, or
+     * null if the ratings aren't kept
+     */
+    public double[] getRatings() {
+        return log == null ? null : Arrays.copyOf(log, count);
+    }
+}
@@ -5,49 +5,68 @@ import fileio.ShowInput;
 
 import java.util.ArrayList;
 
+import static common.Constants.KEEP_RATINGS;
+
 /**
- * Contains information about a show.
+ * Contains information about a show.<br>
+ * The ratings of every season are kept as a RatingAggregate, together with
+ * the average of every season, so a new rating doesn't go through the
+ * ratings given before.
  */
 public final class Show extends Video {
     private final int nrSeasons;
     private final ArrayList<Season> seasons;
+    private final RatingAggregate[] seasonRatings;
+    /**
+     * The average rating of every season (0 if the season isn't rated).
+     */
+    private final double[] seasonAverages;
 
-    public Show(final ShowInput showInput) {
-        super(showInput);
+    public Show(final ShowInput showInput, final int id) {
+        super(showInput, id);
         this.nrSeasons = ((SerialInputData) showInput).getNumberSeason();
         this.seasons = ((SerialInputData) showInput).getSeasons();
 
         for (Season season : this.seasons) {
             this.duration += season.getDuration();
         }
+
+        this.seasonRatings = new RatingAggregate[this.seasons.size()];
+        for (int i = 0; i < this.seasonRatings.length; i++) {
+            this.seasonRatings[i] = new RatingAggregate(KEEP_RATINGS);
+        }
+        this.seasonAverages = new double[this.seasons.size()];
     }
 
     /**
      * Computes the average rating of a show.<br>
-     * It's the sum of all the average ratings of the seasons that show has.
+     * It's the sum of all the average ratings of the seasons that show has,
+     * divided by the number of seasons.<br>
+     * The cached averages are added in the order of the seasons, so the
+     * result is the same as adding up every rating again.
      */
     @Override
     public void calculateAverageRating() {
         double sum = 0d;
 
-        for (Season season : seasons) {
-            Double seasonSum = 0d;
-
-            for (Double rating : season.getRatings()) {
-                seasonSum += rating;
-            }
-
-            if (seasonSum == 0) {
-                sum += 0;
-            } else {
-                seasonSum /= season.getRatings().size();
-                sum += seasonSum;
-            }
+        for (double seasonAverage : seasonAverages) {
+            sum += seasonAverage;
         }
 
         this.avgRating = sum / this.nrSeasons;
     }
 
+    /**
+     * Adds a rating to a season (the average rating of the show is computed
+     * separately).
+     * @param season the number of the season, starting from 1
+     * @param rating the rating that is added
+     */
+    public void addRating(final int season, final double rating) {
+        seasonRatings[season - 1].add(rating);
+        seasonAverages[season - 1] = seasonRatings[season - 1].getAverage();
+    }
+
     @Override
     public boolean isShow() {
         return true;
@@ -56,4 +75,12 @@ public final class Show extends Video {
     public ArrayList<Season> getSeasons() {
         return seasons;
     }
+
+    /**
+     * @param season the number of the season, starting from 1
+     * @return the ratings of that season
+     */
+    public RatingAggregate getSeasonRatings(final int season) {
+        return seasonRatings[season - 1];
+    }
 }
@@ -2,26 +2,42 @@ package entertainment;
 
 import action.Action;
 import fileio.ShowInput;
+import utils.Utils;
 
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides the skeleton for the "Movie" and "Show classes.<br>
- * Contains common members such as title, year, number of views, etc...
+ * Contains common members such as title, year, number of views, etc...<br>
+ * The counters can be updated from multiple threads; the ratings of a video
+ * are guarded by the video itself.
  */
 public abstract class Video {
+    /**
+     * The position of the video in the video database (0, 1, 2, ...).
+     */
+    protected final int id;
     protected String title;
     protected int year;
     protected HashSet<String> actors = new HashSet<>();
     protected HashSet<String> genres = new HashSet<>();
-    protected int views = 0;
+    /**
+     * The ordinals of the genres of the video (the unknown genres are left out).
+     */
+    protected final int[] genreOrdinals;
+    /**
+     * The genres of the video, one bit for every Genre (only the names
+     * written as Utils.genreToString writes them).
+     */
+    protected final int genreMask;
+    protected final AtomicInteger views = new AtomicInteger();
     /**
      * Number of times a video has been added to favorites.
      */
-    protected int nrOfFav = 0;
-    protected Double avgRating = 0d;
+    protected final AtomicInteger nrOfFav = new AtomicInteger();
+    protected volatile Double avgRating = 0d;
     protected int duration = 0;
 
     /**
@@ -34,18 +50,35 @@ public abstract class Video {
      */
     public abstract boolean isShow();
 
-    public Video(final ShowInput showInput) {
+    public Video(final ShowInput showInput, final int id) {
+        this.id = id;
         this.title = showInput.getTitle();
         this.year = showInput.getYear();
         this.actors.addAll(showInput.getCast());
         this.genres.addAll(showInput.getGenres());
+        this.genreOrdinals = this.genres.stream()
+                .map(Utils::stringToGenre)
+                .filter(Objects::nonNull)
+                .mapToInt(Genre::ordinal)
+                .toArray();
+        this.genreMask = this.genres.stream()
+                .mapToInt(Utils::genreBit)
+                .reduce(0, (mask, bit) -> mask | bit);
     }
 
     /**
      * Increments views.
      */
     public final void incViews() {
-        views++;
+        views.incrementAndGet();
+    }
+
+    /**
+     * Adds views.
+     * @param newViews the number of views that are added
+     */
+    public final void addViews(final int newViews) {
+        views.addAndGet(newViews);
     }
 
     /**
@@ -53,7 +86,7 @@ public abstract class Video {
      * list.
      */
     public final void incNrOfFav() {
-        nrOfFav++;
+        nrOfFav.incrementAndGet();
     }
 
     /**
@@ -62,20 +95,7 @@ public abstract class Video {
      * @return true if video respects the filters, false otherwise
      */
     public boolean isFiltered(final Action action) {
-        List<String> years = action.getFilters().get(0);
-        List<String> genresList = action.getFilters().get(1);
-
-        if (years.get(0) != null) {
-            if (!years.get(0).equals(((Integer) this.getYear()).toString())) {
-                return false;
-            }
-        }
-
-        if (genresList.get(0) != null) {
-            return !(Collections.disjoint(genresList, this.getGenres()));
-        }
-
-        return true;
+        return action.getQueryFilter().matches(this);
     }
 
     public final String getTitle() {
@@ -83,29 +103,36 @@ public abstract class Video {
     }
 
     public final int getNrOfFav() {
-        return nrOfFav;
-    }
-
-    public final void setNrOfFav(final int nrOfFav) {
-        this.nrOfFav = nrOfFav;
+        return nrOfFav.get();
     }
 
     public final int getViews() {
-        return views;
-    }
-
-    public final void setViews(final int views) {
-        this.views = views;
+        return views.get();
     }
 
     public final Double getAvgRating() {
         return avgRating;
     }
 
+    public final int getId() {
+        return id;
+    }
+
     public final HashSet<String> getGenres() {
         return genres;
     }
 
+    /**
+     * @return the ordinals of the genres of the video (must not be modified)
+     */
+    public final int[] getGenreOrdinals() {
+        return genreOrdinals;
+    }
+
+    public final int getGenreMask() {
+        return genreMask;
+    }
+
     public final int getYear() {
         return year;
     }
@@ -0,0 +1,212 @@
+package fileio;
+
+import action.Message;
+import common.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The class writes the output in files, one result at a time.<br>
+ * Unlike Writer, it doesn't build a JSONArray with all the results: every
+ * result is written in the file as soon as it is given, in the same format
+ * as JSONArray.toJSONString (the file is encoded as UTF-8).<br>
+ * A message is escaped and encoded as UTF-8 in one pass, part by part, into a
+ * byte buffer that is reused for the whole file, so no string is built for it.
+ */
+public final class ResultWriter implements AutoCloseable {
+    private static final int HEX_DIGITS = 4;
+    private static final char LAST_CONTROL_CHAR = '\u001F';
+    private static final char FIRST_C1_CHAR = '\u007F';
+    private static final char LAST_C1_CHAR = '\u009F';
+    private static final char FIRST_PUNCTUATION_CHAR = '\u2000';
+    private static final char LAST_PUNCTUATION_CHAR = '\u20FF';
+    /**
+     * The size of the output buffer (64 KiB).
+     */
+    private static final int BUFFER_SIZE = 65536;
+    /**
+     * The most bytes a char is written as ("\\uXXXX").
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final String ITEMS_START = "[";
+    private static final String ITEMS_SEPARATOR = ", ";
+    private static final String ITEMS_END = "]";
+    /**
+     * Written instead of a surrogate that isn't part of a pair, like the
+     * UTF-8 encoder of the JDK does.
+     */
+    private static final byte REPLACEMENT = '?';
+    private static final int LAST_ONE_BYTE_CHAR = 0x7F;
+    private static final int LAST_TWO_BYTES_CHAR = 0x7FF;
+    private static final int SIX_BITS = 0x3F;
+    private static final int CONTINUATION = 0x80;
+    private static final int TWO_BYTES_START = 0xC0;
+    private static final int THREE_BYTES_START = 0xE0;
+    private static final int FOUR_BYTES_START = 0xF0;
+    private static final int SHIFT_6 = 6;
+    private static final int SHIFT_12 = 12;
+    private static final int SHIFT_18 = 18;
+    private static final int HEX_SHIFT = 4;
+    private static final int HEX_MASK = 0xF;
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    /**
+     * The file where the data will be written
+     */
+    private final FileChannel file;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * The number of results written so far.
+     */
+    private int results = 0;
+
+    public ResultWriter(final String path) throws IOException {
+        this.file = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes the result of an action as a JSON object.
+     * @param id      of the action
+     * @param message to be written
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeResult(final int id, final Message message) throws IOException {
+        writeAscii(results == 0 ? "[{\"" : ",{\"");
+        writeAscii(Constants.ID_STRING);
+        writeAscii("\":");
+        writeAscii(Integer.toString(id));
+        writeAscii(",\"");
+        writeAscii(Constants.MESSAGE);
+        writeAscii("\":");
+
+        if (message == null) {
+            writeAscii("null");
+        } else {
+            writeAscii("\"");
+            writeEscaped(message.getText());
+
+            List<String> items = message.getItems();
+            if (items != null) {
+                writeAscii(ITEMS_START);
+                for (int i = 0; i < items.size(); i++) {
+                    if (i > 0) {
+                        writeAscii(ITEMS_SEPARATOR);
+                    }
+                    writeEscaped(String.valueOf(items.get(i)));
+                }
+                writeAscii(ITEMS_END);
+            }
+
+            writeAscii("\"");
+        }
+
+        writeAscii("}");
+        results++;
+    }
+
+    /**
+     * Writes a string that has only ASCII chars which aren't escaped.
+     */
+    private void writeAscii(final String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) string.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a string escaped the same way as JSONValue.escape does, encoded
+     * as UTF-8.
+     * @param string the string that is escaped
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeEscaped(final String string) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            if (buffer.remaining() < MAX_CHAR_BYTES) {
+                flush();
+            }
+
+            char ch = string.charAt(i);
+
+            switch (ch) {
+                case '"' -> putEscape('"');
+                case '\\' -> putEscape('\\');
+                case '\b' -> putEscape('b');
+                case '\f' -> putEscape('f');
+                case '\n' -> putEscape('n');
+                case '\r' -> putEscape('r');
+                case '\t' -> putEscape('t');
+                case '/' -> putEscape('/');
+                default -> {
+                    if (ch <= LAST_CONTROL_CHAR
+                            || (ch >= FIRST_C1_CHAR && ch <= LAST_C1_CHAR)
+                            || (ch >= FIRST_PUNCTUATION_CHAR && ch <= LAST_PUNCTUATION_CHAR)) {
+                        putEscape('u');
+                        for (int k = HEX_DIGITS - 1; k >= 0; k--) {
+                            buffer.put(HEX[(ch >> (k * HEX_SHIFT)) & HEX_MASK]);
+                        }
+                    } else if (ch <= LAST_ONE_BYTE_CHAR) {
+                        buffer.put((byte) ch);
+                    } else if (ch <= LAST_TWO_BYTES_CHAR) {
+                        buffer.put((byte) (TWO_BYTES_START | (ch >> SHIFT_6)));
+                        buffer.put((byte) (CONTINUATION | (ch & SIX_BITS)));
+                    } else if (!Character.isSurrogate(ch)) {
+                        buffer.put((byte) (THREE_BYTES_START | (ch >> SHIFT_12)));
+                        buffer.put((byte) (CONTINUATION | ((ch >> SHIFT_6) & SIX_BITS)));
+                        buffer.put((byte) (CONTINUATION | (ch & SIX_BITS)));
+                    } else if (Character.isHighSurrogate(ch) && i + 1 < string.length()
+                            && Character.isLowSurrogate(string.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(ch, string.charAt(++i));
+                        buffer.put((byte) (FOUR_BYTES_START | (codePoint >> SHIFT_18)));
+                        buffer.put((byte) (CONTINUATION | ((codePoint >> SHIFT_12) & SIX_BITS)));
+                        buffer.put((byte) (CONTINUATION | ((codePoint >> SHIFT_6) & SIX_BITS)));
+                        buffer.put((byte) (CONTINUATION | (codePoint & SIX_BITS)));
+                    } else {
+                        buffer.put(REPLACEMENT);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a backslash followed by a char.
+     */
+    private void putEscape(final char ch) {
+        buffer.put((byte) '\\');
+        buffer.put((byte) ch);
+    }
+
+    /**
+     * Writes the buffer in the file and empties it.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Ends the JSON array, writes everything that is left and closes the file.
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeAscii(results == 0 ? "[]" : "]");
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+}
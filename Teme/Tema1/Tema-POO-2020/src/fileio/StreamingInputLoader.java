@@ -0,0 +1,615 @@
+package fileio;
+
+import actor.ActorsAwards;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import common.Constants;
+import entertainment.Season;
+import utils.Utils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class reads and parses the data from the tests token by token.<br>
+ * Unlike InputLoader, it never builds the JSON tree of the file: every actor,
+ * user, video and action is created as soon as its object has been read, so
+ * the memory needed is only the memory of the created objects.<br>
+ * The actions can also be read one by one, after the database, so they can
+ * be executed while the rest of the file is still being read.<br>
+ * The "database" section must come before the "actions" section (as it does
+ * in every test), because the actions without a "number" use the size of the
+ * database.
+ */
+public final class StreamingInputLoader implements AutoCloseable {
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+    private JsonParser parser = null;
+    /**
+     * True if the file has an "actions" section that wasn't read yet.
+     */
+    private boolean hasActions = false;
+    /**
+     * The number of results of the actions that don't have a "number".
+     */
+    private int actionsSize = 0;
+    private List<ActorInputData> actors = null;
+    private List<UserInputData> users = null;
+    private List<MovieInputData> movies = null;
+    private List<SerialInputData> serials = null;
+
+    public StreamingInputLoader(final String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * The method reads the database and the actions
+     * @return an Input object, the same as the one given by InputLoader
+     */
+    public Input readData() {
+        List<ActionInputData> actions = null;
+        Input database = new Input();
+
+        try {
+            database = readDatabase();
+
+            if (hasActions) {
+                actions = new ArrayList<>();
+
+                for (ActionInputData action = nextAction(); action != null;
+                     action = nextAction()) {
+                    actions.add(action);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            close();
+        }
+
+        if (actions == null) {
+            System.out.println("NU EXISTA COMENZI");
+        }
+
+        return new Input(database.getActors(), database.getUsers(), actions,
+                database.getMovies(), database.getSerials());
+    }
+
+    /**
+     * Reads the file until the start of the "actions" section, so the
+     * actions can be read one by one after that.
+     * @see #nextAction
+     * @return an Input object with all the data, except the actions
+     * @throws IOException in case of exceptions to reading
+     */
+    public Input readDatabase() throws IOException {
+        parser = createParser();
+        parser.nextToken();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (field.equals(Constants.DATABASE)) {
+                readDatabaseObject();
+            } else if (field.equals(Constants.ACTIONS) && token != JsonToken.VALUE_NULL) {
+                hasActions = true;
+                actionsSize = getDatabaseSize();
+                break;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return new Input(actors, users, null, movies, serials);
+    }
+
+    /**
+     * Reads the next action from the "actions" section.
+     * @return the action or null if there are no more actions
+     * @throws IOException in case of exceptions to reading
+     */
+    public ActionInputData nextAction() throws IOException {
+        while (hasActions) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                hasActions = false;
+            } else {
+                ActionInputData action = readAction(actionsSize);
+
+                if (action != null) {
+                    return action;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Closes the input file.
+     */
+    @Override
+    public void close() {
+        try {
+            if (parser != null) {
+                parser.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens the input file as a channel and creates a parser over it (the
+     * parser does its own buffering).
+     * @return the parser, positioned before the first token
+     * @throws IOException in case of exceptions to reading
+     */
+    private JsonParser createParser() throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ);
+        return new JsonFactory().createParser(Channels.newInputStream(channel));
+    }
+
+    /**
+     * Reads the "database" object (the parser must be on the start of it).
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readDatabaseObject() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (field) {
+                case Constants.ACTORS -> {
+                    actors = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        actors.add(readActor());
+                    }
+                }
+                case Constants.USERS -> {
+                    users = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        users.add(readUser());
+                    }
+                }
+                case Constants.MOVIES -> {
+                    movies = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        movies.add(readMovie());
+                    }
+                }
+                case Constants.SHOWS -> {
+                    serials = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        serials.add(readSerial());
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (actors == null) {
+            System.out.println("NU EXISTA ACTORI");
+        }
+
+        if (users == null) {
+            System.out.println("NU EXISTA UTILIZATORI");
+        }
+
+        if (serials == null) {
+            System.out.println("NU EXISTA SERIALE");
+        }
+
+        if (movies == null) {
+            System.out.println("NU EXISTA FILME");
+        }
+    }
+
+    private ActorInputData readActor() throws IOException {
+        String name = null;
+        String description = null;
+        ArrayList<String> filmography = null;
+        Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case Constants.NAME -> {
+                    name = readString(parser);
+                }
+                case Constants.DESCRIPTION -> {
+                    description = readString(parser);
+                }
+                case Constants.FILMOGRAPHY -> {
+                    filmography = readStringList(parser);
+                }
+                case Constants.AWARDS -> {
+                    awards = readAwards();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new ActorInputData(name, description, filmography, awards);
+    }
+
+    private Map<ActorsAwards, Integer> readAwards() throws IOException {
+        Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return awards;
+        }
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String awardType = null;
+            int numberOfAwards = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case Constants.AWARD_TYPE -> {
+                        awardType = readString(parser);
+                    }
+                    case Constants.NUMBER_OF_AWARDS -> {
+                        numberOfAwards = parser.getValueAsInt();
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            awards.put(Utils.stringToAwards(awardType), numberOfAwards);
+        }
+
+        return awards;
+    }
+
+    private UserInputData readUser() throws IOException {
+        String username = null;
+        String subscription = null;
+        Map<String, Integer> history = null;
+        ArrayList<String> favorites = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case Constants.USERNAME -> {
+                    username = readString(parser);
+                }
+                case Constants.SUBSCRIPTION -> {
+                    subscription = readString(parser);
+                }
+                case Constants.HISTORY -> {
+                    history = readHistory();
+                }
+                case Constants.FAVORITE_MOVIES -> {
+                    favorites = readStringList(parser);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (history == null) {
+            System.out.println("NU ESTE VIZIONAT NICIUN FILM");
+            history = new LinkedHashMap<>();
+        }
+
+        return new UserInputData(username, subscription, history, favorites);
+    }
+
+    private Map<String, Integer> readHistory() throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        Map<String, Integer> history = new LinkedHashMap<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String title = null;
+            int views = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case Constants.NAME -> {
+                        title = readString(parser);
+                    }
+                    case Constants.NUMBER_VIEWS -> {
+                        views = parser.getValueAsInt();
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            history.put(title, views);
+        }
+
+        return history;
+    }
+
+    private MovieInputData readMovie() throws IOException {
+        String title = null;
+        ArrayList<String> cast = null;
+        ArrayList<String> genres = null;
+        int year = 0;
+        int duration = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case Constants.NAME -> {
+                    title = readString(parser);
+                }
+                case Constants.ACTORS -> {
+                    cast = readStringList(parser);
+                }
+                case Constants.GENRES -> {
+                    genres = readStringList(parser);
+                }
+                case Constants.YEAR -> {
+                    year = parser.getValueAsInt();
+                }
+                case Constants.DURATION -> {
+                    duration = parser.getValueAsInt();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new MovieInputData(title, cast, genres, year, duration);
+    }
+
+    private SerialInputData readSerial() throws IOException {
+        String title = null;
+        ArrayList<String> cast = null;
+        ArrayList<String> genres = null;
+        int numberOfSeasons = 0;
+        ArrayList<Season> seasons = null;
+        int year = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case Constants.NAME -> {
+                    title = readString(parser);
+                }
+                case Constants.CAST -> {
+                    cast = readStringList(parser);
+                }
+                case Constants.GENRES -> {
+                    genres = readStringList(parser);
+                }
+                case Constants.NUMBER_OF_SEASONS -> {
+                    numberOfSeasons = parser.getValueAsInt();
+                }
+                case Constants.SEASONS -> {
+                    seasons = readSeasons();
+                }
+                case Constants.YEAR -> {
+                    year = parser.getValueAsInt();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new SerialInputData(title, cast, genres, numberOfSeasons, seasons, year);
+    }
+
+    private ArrayList<Season> readSeasons() throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        ArrayList<Season> seasons = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int currentSeason = 0;
+            int duration = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case Constants.CURRENT_SEASON -> {
+                        currentSeason = parser.getValueAsInt();
+                    }
+                    case Constants.DURATION -> {
+                        duration = parser.getValueAsInt();
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            seasons.add(new Season(currentSeason, duration));
+        }
+
+        return seasons;
+    }
+
+    /**
+     * @return the number of results of the actions that don't have a "number"
+     */
+    private int getDatabaseSize() {
+        int videos = (movies == null ? 0 : movies.size())
+                + (serials == null ? 0 : serials.size());
+        int nrUsers = users == null ? 0 : users.size();
+        int nrActors = actors == null ? 0 : actors.size();
+
+        return Math.max(Math.max(videos, nrUsers), nrActors);
+    }
+
+    /**
+     * Reads one action object (the parser must be on the start of it).
+     * @param size the number of results if the action doesn't have a "number"
+     * @return the action or null if the type of the action is unknown
+     * @throws IOException in case of exceptions to reading
+     */
+    private ActionInputData readAction(final int size) throws IOException {
+        int actionId = 0;
+        String actionType = null;
+        String type = null;
+        String user = null;
+        String username = null;
+        String title = null;
+        String objectType = null;
+        String sortType = null;
+        String criteria = null;
+        String genre = null;
+        String filterGenre = null;
+        String year = null;
+        ArrayList<String> words = null;
+        ArrayList<String> awards = null;
+        double grade = 0;
+        int season = 0;
+        int number = size;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case Constants.ID -> {
+                    actionId = parser.getValueAsInt();
+                }
+                case Constants.ACTION_TYPE -> {
+                    actionType = readString(parser);
+                }
+                case Constants.TYPE -> {
+                    type = readString(parser);
+                }
+                case Constants.USER -> {
+                    user = readString(parser);
+                }
+                case Constants.USERNAME -> {
+                    username = readString(parser);
+                }
+                case Constants.TITLE -> {
+                    title = readString(parser);
+                }
+                case Constants.OBJECT -> {
+                    objectType = readString(parser);
+                }
+                case Constants.SORT -> {
+                    sortType = readString(parser);
+                }
+                case Constants.CRITERIA -> {
+                    criteria = readString(parser);
+                }
+                case Constants.GENRE -> {
+                    genre = readString(parser);
+                }
+                case Constants.GRADE -> {
+                    grade = parser.getValueAsDouble();
+                }
+                case Constants.SEASON -> {
+                    season = parser.getValueAsInt();
+                }
+                case Constants.NUMBER -> {
+                    if (token != JsonToken.VALUE_NULL) {
+                        number = parser.getValueAsInt();
+                    }
+                }
+                case Constants.FILTERS -> {
+                    while (token != JsonToken.VALUE_NULL
+                            && parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String filter = parser.getCurrentName();
+                        parser.nextToken();
+
+                        switch (filter) {
+                            case Constants.GENRE -> {
+                                filterGenre = readString(parser);
+                            }
+                            case Constants.YEAR -> {
+                                year = readString(parser);
+                            }
+                            case Constants.AWARDS -> {
+                                awards = readStringList(parser);
+                            }
+                            case Constants.WORDS -> {
+                                words = readStringList(parser);
+                            }
+                            default -> parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (actionType == null) {
+            return null;
+        }
+
+        return switch (actionType) {
+            case Constants.COMMAND -> new ActionInputData(actionId, actionType, type, user,
+                    title, grade, season);
+            case Constants.QUERY -> new ActionInputData(actionId, actionType, objectType,
+                    filterGenre, sortType, criteria, year, number, words, awards);
+            case Constants.RECOMMENDATION -> new ActionInputData(actionId, actionType, type,
+                    username, genre);
+            default -> null;
+        };
+    }
+
+    /**
+     * @param parser positioned on a value
+     * @return the value as a string or null if the value is null
+     * @throws IOException in case of exceptions to reading
+     */
+    private static String readString(final JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        return parser.getText();
+    }
+
+    /**
+     * @param parser positioned on the start of an array of strings
+     * @return the strings or null if the array is null
+     * @throws IOException in case of exceptions to reading
+     */
+    private static ArrayList<String> readStringList(final JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        ArrayList<String> strings = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            strings.add(readString(parser));
+        }
+
+        return strings;
+    }
+}
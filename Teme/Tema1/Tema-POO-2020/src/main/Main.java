@@ -1,25 +1,31 @@
 package main;
 
-import action.Action;
+import action.ActionPipeline;
+import action.LatencyStats;
 import checker.Checkstyle;
 import checker.Checker;
 import common.Constants;
-import database.ActionDatabase;
 import database.ActorDatabase;
 import database.GenreDatabase;
 import database.UserDatabase;
 import database.VideoDatabase;
 import fileio.Input;
-import fileio.InputLoader;
-import fileio.Writer;
-import org.json.simple.JSONArray;
+import fileio.ResultWriter;
+import fileio.StreamingInputLoader;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
@@ -48,15 +54,7 @@ public final class Main {
         Checker checker = new Checker();
         checker.deleteFiles(outputDirectory.listFiles());
 
-        for (File file : Objects.requireNonNull(directory.listFiles())) {
-
-            String filepath = Constants.OUT_PATH + file.getName();
-            File out = new File(filepath);
-            boolean isCreated = out.createNewFile();
-            if (isCreated) {
-                action(file.getAbsolutePath(), filepath);
-            }
-        }
+        actionAll(Objects.requireNonNull(directory.listFiles()));
 
         checker.iterateFiles(Constants.RESULT_PATH, Constants.REF_PATH, Constants.TESTS_PATH);
         Checkstyle test = new Checkstyle();
@@ -64,33 +62,98 @@ public final class Main {
     }
 
     /**
+     * Calls "action" for every input file.<br>
+     * The files don't share any data, so they are run in parallel on a
+     * work-stealing pool with Constants.PARALLELISM threads; every file still
+     * has its own output file.
+     * @param files the input files
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void actionAll(final File[] files) throws IOException {
+        ExecutorService pool = Executors.newWorkStealingPool(Constants.PARALLELISM);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (File file : files) {
+            tasks.add(() -> {
+                String filepath = Constants.OUT_PATH + file.getName();
+                File out = new File(filepath);
+                boolean isCreated = out.createNewFile();
+                if (isCreated) {
+                    action(file.getAbsolutePath(), filepath);
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads the database, then executes the actions while they are still
+     * being read and writes every result as soon as it is produced.<br>
+     * With -Dvideosdb.latencyStats=true it also writes a latency report.
+     * @see action.ActionPipeline
+     * @see action.LatencyStats
      * @param filePath1 for input file
      * @param filePath2 for output file
      * @throws IOException in case of exceptions to reading / writing
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        InputLoader inputLoader = new InputLoader(filePath1);
-        Input input = inputLoader.readData();
-
-        Writer fileWriter = new Writer(filePath2);
-        JSONArray arrayResult = new JSONArray();
-
-        // Builds the database
-        GenreDatabase genreDatabase = new GenreDatabase();
-        VideoDatabase videoDatabase = new VideoDatabase(input.getMovies(), input.getSerials());
-        UserDatabase userDatabase = new UserDatabase(input.getUsers(), videoDatabase,
-                                                        genreDatabase);
-        ActorDatabase actorDatabase = new ActorDatabase(input.getActors());
-        ActionDatabase actionDatabase = new ActionDatabase(input.getCommands());
-
-        // executes every action
-        for (Action action : actionDatabase.getActionsDatabase()) {
-            String message = action.executeAction(actorDatabase, userDatabase,
-                                                    videoDatabase, genreDatabase);
-            arrayResult.add(fileWriter.writeFile(action.getActionId(), "", message));
+        try (StreamingInputLoader inputLoader = new StreamingInputLoader(filePath1);
+             ResultWriter fileWriter = new ResultWriter(filePath2)) {
+            long start = System.nanoTime();
+            Input input = inputLoader.readDatabase();
+
+            // Builds the database
+            GenreDatabase genreDatabase = new GenreDatabase();
+            VideoDatabase videoDatabase = new VideoDatabase(input.getMovies(),
+                                                            input.getSerials());
+            UserDatabase userDatabase = new UserDatabase(input.getUsers(), videoDatabase,
+                                                            genreDatabase);
+            ActorDatabase actorDatabase = new ActorDatabase(input.getActors(), videoDatabase);
+
+            // executes every action, in the order they are read
+            LatencyStats latencyStats = Constants.LATENCY_STATS ? new LatencyStats() : null;
+            ActionPipeline pipeline = new ActionPipeline(actorDatabase, userDatabase,
+                                                            videoDatabase, genreDatabase,
+                                                            latencyStats);
+            long actionsStart = System.nanoTime();
+            pipeline.run(inputLoader, fileWriter::writeResult);
+
+            if (latencyStats != null) {
+                latencyStats.writeReport(latencyReportPath(filePath2), filePath1,
+                        actionsStart - start, System.nanoTime() - actionsStart);
+            }
         }
+    }
+
+    /**
+     * Creates the directory of the latency reports if it doesn't exist.
+     * @param resultPath the result file
+     * @return the latency report of that result file
+     * @throws IOException if the directory can't be created
+     */
+    private static String latencyReportPath(final String resultPath) throws IOException {
+        Path directory = Files.createDirectories(Paths.get(Constants.LATENCY_REPORT_DIR));
+        String fileName = Paths.get(resultPath).getFileName() + Constants.LATENCY_REPORT_SUFFIX;
 
-        fileWriter.closeJSON(arrayResult);
+        return directory.resolve(fileName).toString();
     }
 }
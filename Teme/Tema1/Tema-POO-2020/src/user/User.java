@@ -6,38 +6,52 @@ import entertainment.Movie;
 import entertainment.Show;
 import entertainment.Video;
 import fileio.UserInputData;
-import utils.Utils;
+import utils.IntIntMap;
 
 import static common.Constants.BASIC;
 import static common.Constants.PREMIUM;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Contains info about an user.
+ * Contains info about an user.<br>
+ * The videos are kept by their ids (in BitSets and an IntIntMap), not by
+ * their titles.<br>
+ * The actions of an user (that read or change its data) are executed one
+ * at a time for every user (they lock the user); only the number of ratings
+ * is read without the lock.
  */
 public final class User {
     private final String username;
     private final boolean subscription;
-    private final HashSet<Video> favVideos = new HashSet<>();
     /**
-     * Retains the videos that have been seen and the amount of times that
-     * user watched that video.
+     * The ids of the favorite videos.
      */
-    private final HashMap<Video, Integer> viewedList = new HashMap<>();
+    private final BitSet favVideos = new BitSet();
     /**
-     * The number of times this user has rated a video.
+     * Retains the ids of the videos that have been seen and the amount of
+     * times that user watched that video.
+     */
+    private final IntIntMap viewedList = new IntIntMap();
+    /**
+     * The ids of the videos that have been seen.
+     */
+    private final BitSet seenVideos = new BitSet();
+    /**
+     * No video with a smaller id is unseen (videos are only ever seen, never
+     * unseen, so it only moves forward).
      */
-    private int nrOfRatings = 0;
+    private int unseenCursor = 0;
     /**
-     * List of movies this user has rated.
+     * The number of times this user has rated a video.
      */
-    private final HashSet<String> ratedMovies = new HashSet<>();
+    private final AtomicInteger nrOfRatings = new AtomicInteger();
     /**
-     * List of shows this user has rated.
+     * The rating slots of the movies / seasons this user has rated.
+     * @see database.VideoDatabase#getRatingSlot
      */
-    private final HashSet<String> ratedShows = new HashSet<>();
+    private final BitSet ratedSlots = new BitSet();
 
     public User(final UserInputData userData, final VideoDatabase videoDatabase,
                 final GenreDatabase genreDatabase) {
@@ -67,8 +81,8 @@ public final class User {
     private void readFavVideos(final UserInputData userData, final VideoDatabase videoDatabase) {
         for (String title : userData.getFavoriteMovies()) {
             Video favVideo = videoDatabase.getVideoDatabase().get(title);
-            favVideos.add(favVideo);
-            favVideo.setNrOfFav(favVideo.getNrOfFav() + 1);
+            favVideos.set(favVideo.getId());
+            videoDatabase.incNrOfFav(favVideo);
         }
     }
 
@@ -84,12 +98,10 @@ public final class User {
                                 final GenreDatabase genreDatabase) {
         userData.getHistory().forEach(((title, views) -> {
             Video viewedVideo = videoDatabase.getVideoDatabase().get(title);
-            viewedVideo.setViews(viewedVideo.getViews() + views);
-            viewedList.put(viewedVideo, views);
-
-            viewedVideo.getGenres().forEach(genre ->
-                    genreDatabase.getGenreDatabase().put(Utils.stringToGenre(genre),
-                    genreDatabase.getGenreDatabase().get(Utils.stringToGenre(genre)) + views));
+            videoDatabase.addViews(viewedVideo, views);
+            viewedList.put(viewedVideo.getId(), views);
+            seenVideos.set(viewedVideo.getId());
+            genreDatabase.addViews(viewedVideo.getGenreOrdinals(), views);
         }));
     }
 
@@ -97,89 +109,124 @@ public final class User {
      * Adds and increments number of times this video was added to a user's
      * favorite list.
      * @param video the video that is added to favorite list
+     * @param videoDatabase the database of videos
      */
-    public void addVideoInFavList(final Video video) {
-        this.favVideos.add(video);
-        video.incNrOfFav();
+    public void addVideoInFavList(final Video video, final VideoDatabase videoDatabase) {
+        this.favVideos.set(video.getId());
+        videoDatabase.incNrOfFav(video);
     }
 
     /**
      * Increments the views of the video and the genres of that video.<br>
      * Puts the video in the viewed list of the user if it wasn't watched.
      * @param video the video that is viewed
+     * @param videoDatabase the database of videos
      * @param genreDatabase the database of genres
      */
-    public void watchVideo(final Video video, final GenreDatabase genreDatabase) {
-        video.incViews();
+    public void watchVideo(final Video video, final VideoDatabase videoDatabase,
+                           final GenreDatabase genreDatabase) {
+        videoDatabase.incViews(video);
+        genreDatabase.addViews(video.getGenreOrdinals(), 1);
 
-        video.getGenres().forEach(genreName ->
-                genreDatabase.getGenreDatabase().put(Utils.stringToGenre(genreName),
-                        genreDatabase.getGenreDatabase().get(Utils.stringToGenre(genreName)) + 1));
+        this.viewedList.add(video.getId(), 1);
+        this.seenVideos.set(video.getId());
+    }
 
-        if (!this.viewedList.containsKey(video)) {
-            this.viewedList.put(video, 1);
-        } else {
-            this.viewedList.put(video, this.viewedList.get(video) + 1);
-        }
+    /**
+     * @param video the video
+     * @return true if the user has seen the video
+     */
+    public boolean hasSeen(final Video video) {
+        return seenVideos.get(video.getId());
+    }
+
+    /**
+     * @param video the video
+     * @return the number of times the user has watched the video
+     */
+    public int getViews(final Video video) {
+        return viewedList.get(video.getId(), 0);
+    }
+
+    /**
+     * @param video the video
+     * @return true if the video is in the favorite list of the user
+     */
+    public boolean isFavorite(final Video video) {
+        return favVideos.get(video.getId());
+    }
+
+    /**
+     * @param ratingSlot the rating slot of a movie / season
+     * @return true if the user has rated that movie / season
+     */
+    public boolean hasRated(final int ratingSlot) {
+        return ratingSlot >= 0 && ratedSlots.get(ratingSlot);
+    }
+
+    /**
+     * Moves the cursor over the videos that have been seen.
+     * @return the smallest id of a video that hasn't been seen (it may be
+     * the number of videos, if all of them have been seen)
+     */
+    public int firstUnseenVideo() {
+        unseenCursor = seenVideos.nextClearBit(unseenCursor);
+        return unseenCursor;
     }
 
     /**
      * Increments the number of times that user rated a video.<br>
      * Adds the movie in the list of rated movies.<br>
-     * Adds the grade in the list of grades of that movie.<br>
-     * Computes the new avgRating of that movie.
+     * Adds the grade to the ratings of that movie.<br>
+     * Computes the new avgRating of that movie (while holding the lock of
+     * the movie).
      * @param movie the movie that is rated
      * @param rating the grade that is attributed to the movie
+     * @param videoDatabase the database of videos
      */
-    public void rateMovie(final Video movie, final Double rating) {
-        nrOfRatings++;
-        ratedMovies.add(movie.getTitle());
-        ((Movie) movie).getRatings().add(rating);
-        movie.calculateAverageRating();
+    public void rateMovie(final Video movie, final Double rating,
+                          final VideoDatabase videoDatabase) {
+        nrOfRatings.incrementAndGet();
+        ratedSlots.set(videoDatabase.getRatingSlot(movie, 0));
+
+        synchronized (movie) {
+            ((Movie) movie).addRating(rating);
+            videoDatabase.updateAverageRating(movie);
+        }
     }
 
 
     /**
      * Increments the number of times that user rated a video.<br>
      * Adds the show in the list of rated shows.<br>
-     * Adds the grade in the list of grades of that show.<br>
-     * Computes the new avgRating of that show.
+     * Adds the grade to the ratings of that season of the show.<br>
+     * Computes the new avgRating of that show (while holding the lock of
+     * the show).
      * @param season the season that is rated
      * @param show the show that is rated
      * @param rating the grade that is attributed to the season of the show
+     * @param videoDatabase the database of videos
      */
-    public void rateShow(final int season, final Video show, final Double rating) {
-        nrOfRatings++;
-        ratedShows.add(show.getTitle() + season);
-        ((Show) show).getSeasons().get(season - 1).getRatings().add(rating);
-        show.calculateAverageRating();
+    public void rateShow(final int season, final Video show, final Double rating,
+                         final VideoDatabase videoDatabase) {
+        nrOfRatings.incrementAndGet();
+        ratedSlots.set(videoDatabase.getRatingSlot(show, season));
+
+        synchronized (show) {
+            ((Show) show).addRating(season, rating);
+            videoDatabase.updateAverageRating(show);
+        }
     }
 
     public String getUsername() {
         return username;
     }
 
-    public HashSet<Video> getFavVideos() {
-        return favVideos;
-    }
-
-    public HashMap<Video, Integer> getViewedList() {
-        return viewedList;
-    }
-
-    public HashSet<String> getRatedMovies() {
-        return ratedMovies;
-    }
-
-    public HashSet<String> getRatedShows() {
-        return ratedShows;
-    }
-
     public boolean getSubscription() {
         return this.subscription;
     }
 
     public int getNrOfRatings() {
-        return nrOfRatings;
+        return nrOfRatings.get();
     }
 }
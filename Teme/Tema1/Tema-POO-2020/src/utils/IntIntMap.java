@@ -0,0 +1,121 @@
+package utils;
+
+/**
+ * A map from int keys (>= 0) to int values, kept in two int arrays (open
+ * addressing, linear probing), so no key or value is boxed.<br>
+ * It isn't synchronized.
+ */
+public final class IntIntMap {
+    private static final int INITIAL_CAPACITY = 8;
+    /**
+     * Phi * 2^32, spreads consecutive keys over the table.
+     */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * The keys plus 1 (0 marks an empty slot).
+     */
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @param key the key
+     * @param defaultValue returned if the key isn't in the map
+     * @return the value of the key or defaultValue
+     */
+    public int get(final int key, final int defaultValue) {
+        int slot = find(key);
+        return keys[slot] == 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(final int key) {
+        return keys[find(key)] != 0;
+    }
+
+    /**
+     * Puts a value for a key (replaces the old value, if any).
+     * @param key the key
+     * @param value the value
+     */
+    public void put(final int key, final int value) {
+        int slot = find(key);
+
+        if (keys[slot] == 0) {
+            keys[slot] = key + 1;
+            values[slot] = value;
+            grow();
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Adds to the value of a key (a key that isn't in the map has value 0).
+     * @param key the key
+     * @param delta the number that is added
+     * @return the new value of the key
+     */
+    public int add(final int key, final int delta) {
+        int slot = find(key);
+
+        if (keys[slot] == 0) {
+            keys[slot] = key + 1;
+            values[slot] = delta;
+            grow();
+            return delta;
+        }
+
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot of the key or the empty slot where it would be put
+     */
+    private int find(final int key) {
+        int mask = keys.length - 1;
+        int slot = (key * HASH_MULTIPLIER) >>> Integer.numberOfLeadingZeros(mask);
+
+        while (keys[slot] != 0 && keys[slot] != key + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Counts a new key and doubles the arrays when they are half full.
+     */
+    private void grow() {
+        size++;
+
+        if (2 * size <= keys.length) {
+            return;
+        }
+
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[2 * oldKeys.length];
+        values = new int[2 * oldValues.length];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i] - 1);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values (latencies in nanoseconds) in log-linear buckets: every power
+ * of two is split in 32 buckets, so a value is known with an error of at most
+ * 1 / 32 (about 3%), with a fixed number of buckets for any value.<br>
+ * Values can be recorded from multiple threads (without locks); the
+ * percentiles should be read after the recording is done.
+ */
+public final class LatencyHistogram {
+    /**
+     * Every power of two is split in 2^SUB_BITS buckets.
+     */
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value the value (negative values are counted as 0)
+     */
+    public void record(final long value) {
+        long positive = Math.max(0, value);
+
+        counts.incrementAndGet(bucket(positive));
+        count.incrementAndGet();
+        total.addAndGet(positive);
+        max.accumulateAndGet(positive, Math::max);
+    }
+
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value that goes in a bucket
+     */
+    private static long highestValue(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * @param quantile from 0 to 1 (e.g. 0.99 for the 99th percentile)
+     * @return the value under which (or at which) are "quantile" of all the
+     * values, rounded up to the end of its bucket (but never more than the
+     * largest value); 0 if there are no values
+     */
+    public long getPercentile(final double quantile) {
+        long values = count.get();
+        if (values == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * values));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the sum of all the values
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+}
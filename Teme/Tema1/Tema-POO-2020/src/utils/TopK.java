@@ -0,0 +1,80 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the first "number" elements (in the order asked by a query) from
+ * the elements it is given, without sorting all of them.<br>
+ * Only the best "number" elements are kept, in a heap that has the worst of
+ * them on top, so adding an element is O(log number). If "number" is 0, every
+ * element is kept and they are sorted at the end.
+ * @param <T> the type of the elements
+ */
+public final class TopK<T> {
+    /**
+     * The order of the result.
+     */
+    private final Comparator<T> order;
+    private final int number;
+    /**
+     * The best elements so far, with the worst of them on top (if number > 0).
+     */
+    private final PriorityQueue<T> heap;
+    /**
+     * All the elements (if number is 0).
+     */
+    private final ArrayList<T> all;
+
+    /**
+     * @param comparator the ascending order of the elements
+     * @param descending true if the elements are in descending order
+     * @param number the number of elements that are kept (0 for all)
+     */
+    public TopK(final Comparator<? super T> comparator, final boolean descending,
+                final int number) {
+        Comparator<T> ascending = comparator::compare;
+        this.order = descending ? ascending.reversed() : ascending;
+        this.number = number;
+        this.heap = number <= 0 ? null : new PriorityQueue<>(number, order.reversed());
+        this.all = number <= 0 ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Adds an element, if it's one of the best "number" elements so far.
+     * @param element the element
+     */
+    public void add(final T element) {
+        if (all != null) {
+            all.add(element);
+        } else if (heap.size() < number) {
+            heap.add(element);
+        } else if (order.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /**
+     * Adds the best elements of another TopK (with the same order and number).
+     * @param other the other TopK
+     */
+    public void addAll(final TopK<T> other) {
+        if (other.all != null) {
+            other.all.forEach(this::add);
+        } else {
+            other.heap.forEach(this::add);
+        }
+    }
+
+    /**
+     * @return the best elements, in the order asked by the query
+     */
+    public ArrayList<T> toList() {
+        ArrayList<T> result = all != null ? new ArrayList<>(all) : new ArrayList<>(heap);
+        result.sort(order);
+
+        return result;
+    }
+}
@@ -136,6 +136,21 @@ public final class Utils {
         return new ArrayList<>(Arrays.asList(auxStr.split(" ")));
     }
 
+    /**
+     * @param genreName the name of a genre
+     * @return the bit of the genre (1 shifted by its ordinal), only if the
+     * name is written exactly as genreToString writes it; 0 otherwise
+     */
+    public static int genreBit(final String genreName) {
+        Genre genre = genreName == null ? null : stringToGenre(genreName);
+
+        if (genre != null && genreToString(genre).equals(genreName)) {
+            return 1 << genre.ordinal();
+        }
+
+        return 0;
+    }
+
     /**
      * Transforms a Genre into a string.
      * @param genre of video